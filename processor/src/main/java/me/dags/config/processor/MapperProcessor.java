@@ -0,0 +1,422 @@
+package me.dags.config.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a Mapper for each class annotated with me.dags.config.Generate. The generated Mapper describes the
+ * class through me.dags.config.Schema, so building it performs none of the reflective field and annotation
+ * scanning that Mapper.of(..) otherwise does at runtime.
+ *
+ * Classes that cannot be described without reflection (private or final value fields, inaccessible types,
+ * unresolved generics, $self types) are skipped with a warning and fall back to the reflective mapper.
+ *
+ * Types outside of the built-in values are described as objects. Whether a codec has been registered for them is
+ * only known at runtime, so Schema checks when the Mapper is built and maps those types as values instead, matching
+ * the reflective mapper.
+ *
+ * @author dags <dags@dags.me>
+ */
+@SupportedAnnotationTypes(MapperProcessor.GENERATE)
+public class MapperProcessor extends AbstractProcessor {
+
+    static final String GENERATE = "me.dags.config.Generate";
+
+    private static final String COMMENT = "me.dags.config.style.Comment";
+    private static final String DEFAULT = "me.dags.config.style.Default";
+    private static final String ORDER = "me.dags.config.style.Order";
+    private static final String STYLE = "me.dags.config.style.Style";
+
+    private static final Set<String> VALUES = new HashSet<>(Arrays.asList(
+            "java.lang.Boolean",
+            "java.lang.Byte",
+            "java.lang.Character",
+            "java.lang.Double",
+            "java.lang.Float",
+            "java.lang.Integer",
+            "java.lang.Long",
+            "java.lang.Short",
+            "java.lang.String",
+            "java.math.BigDecimal",
+            "java.net.InetAddress",
+            "java.nio.file.Path",
+            "java.time.Duration",
+            "java.time.Instant",
+            "java.util.UUID"
+    ));
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+        TypeElement generate = processingEnv.getElementUtils().getTypeElement(GENERATE);
+        if (generate == null || annotations.isEmpty()) {
+            return false;
+        }
+
+        for (TypeElement type : ElementFilter.typesIn(env.getElementsAnnotatedWith(generate))) {
+            if (type.getKind() != ElementKind.CLASS) {
+                error(type, "@Generate can only be applied to classes");
+                continue;
+            }
+
+            try {
+                write(type, new Generator(type).generate());
+            } catch (Unsupported e) {
+                warn(type, "Mapper not generated, falling back to reflection: " + e.getMessage());
+            } catch (IOException e) {
+                error(type, "Unable to write Mapper: " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    private void write(TypeElement type, String source) throws IOException {
+        String name = getMapperName(type);
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, type).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private void warn(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Mirrors the runtime lookup in ClassMapper: the binary name with '$' replaced by '_', suffixed with _Mapper
+     */
+    private String getMapperName(TypeElement type) {
+        String binary = processingEnv.getElementUtils().getBinaryName(type).toString();
+        return binary.replace('$', '_') + "_Mapper";
+    }
+
+    private class Generator {
+
+        private final Elements elements = processingEnv.getElementUtils();
+        private final Types types = processingEnv.getTypeUtils();
+        private final Deque<TypeElement> visiting = new ArrayDeque<>();
+        private final TypeElement root;
+        private final PackageElement pkg;
+
+        private Generator(TypeElement root) {
+            this.root = root;
+            this.pkg = elements.getPackageOf(root);
+        }
+
+        private String generate() throws Unsupported {
+            String name = getMapperName(root);
+            String simpleName = name.substring(name.lastIndexOf('.') + 1);
+            String type = root.getQualifiedName().toString();
+            String body = object(root, "        ") + "\n                .build()";
+
+            StringBuilder source = new StringBuilder();
+            if (!pkg.isUnnamed()) {
+                source.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+            }
+            source.append("import me.dags.config.Mapper;\n");
+            source.append("import me.dags.config.Schema;\n\n");
+            source.append("import java.util.function.Supplier;\n\n");
+            source.append("/**\n * Generated by ").append(MapperProcessor.class.getName()).append(", do not edit\n */\n");
+            source.append("public final class ").append(simpleName).append(" implements Supplier<Mapper<").append(type).append(">> {\n\n");
+            source.append("    @Override\n");
+            source.append("    public Mapper<").append(type).append("> get() {\n");
+            source.append("        return ").append(body).append(";\n");
+            source.append("    }\n");
+            source.append("}\n");
+            return source.toString();
+        }
+
+        private String object(TypeElement type, String indent) throws Unsupported {
+            checkAccessible(type);
+
+            if (visiting.contains(type)) {
+                throw new Unsupported("recursive type " + type.getQualifiedName());
+            }
+
+            visiting.push(type);
+
+            String name = type.getQualifiedName().toString();
+            String line = "\n" + indent + "        ";
+            StringBuilder builder = new StringBuilder("Schema.object(").append(name).append(".class, ");
+            builder.append(hasPublicConstructor(type) ? name + "::new" : "null").append(")");
+
+            AnnotationMirror style = getAnnotation(type, STYLE);
+            if (style != null) {
+                Map<String, Object> values = getValues(style);
+                builder.append(line).append(".style(Schema.style(")
+                        .append(values.get("breaks")).append(", ")
+                        .append(values.get("pad")).append(", ")
+                        .append(values.get("indent")).append(", ")
+                        .append(values.get("comments")).append(", ")
+                        .append(values.get("override")).append(", ")
+                        .append(values.get("ignoreEmpty")).append("))");
+            }
+
+            AnnotationMirror order = getAnnotation(type, ORDER);
+            if (order != null) {
+                builder.append(line).append(".order(").append(strings(getValues(order).get("value"))).append(")");
+            }
+
+            AnnotationMirror header = getAnnotation(type, COMMENT);
+            if (header != null) {
+                builder.append(line).append(".header(").append(strings(getValues(header).get("value"))).append(")");
+            }
+
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                String fieldName = field.getSimpleName().toString();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+
+                if (fieldName.equals("$self")) {
+                    throw new Unsupported("$self types are not supported");
+                }
+
+                if (!isAccessible(field)) {
+                    throw new Unsupported("field " + name + "." + fieldName + " is not accessible");
+                }
+
+                builder.append(line).append(field(field, indent + "        "));
+
+                AnnotationMirror comment = getAnnotation(field, COMMENT);
+                if (comment != null) {
+                    builder.append(line).append(".comment(").append(literal(fieldName)).append(", ")
+                            .append(strings(getValues(comment).get("value"))).append(")");
+                }
+            }
+
+            visiting.pop();
+            return builder.toString();
+        }
+
+        private String field(VariableElement field, String indent) throws Unsupported {
+            String name = field.getSimpleName().toString();
+            String getter = "o -> o." + name;
+            String setter = field.getModifiers().contains(Modifier.FINAL) ? "null" : "(o, v) -> o." + name + " = v";
+            TypeMirror type = field.asType();
+
+            if (isValue(type)) {
+                if (field.getModifiers().contains(Modifier.FINAL)) {
+                    throw new Unsupported("value field " + name + " is final");
+                }
+                AnnotationMirror def = getAnnotation(field, DEFAULT);
+                String defValue = def == null ? "null" : literal((String) getValues(def).get("value"));
+                return ".value(" + literal(name) + ", " + classLiteral(type) + ", " + defValue + ", " + getter + ", " + setter + ")";
+            }
+
+            if (isAssignable(type, "java.util.Map")) {
+                List<? extends TypeMirror> args = getTypeArguments(type, "java.util.Map");
+                String factory = factory(type, "java.util.LinkedHashMap");
+                return ".<" + type + ">map(" + literal(name) + ", " + template(args.get(0), indent) + ", " + template(args.get(1), indent)
+                        + ", " + factory + ", " + getter + ", " + setter + ")";
+            }
+
+            if (isAssignable(type, "me.dags.config.Lazy")) {
+                List<? extends TypeMirror> args = getTypeArguments(type, "me.dags.config.Lazy");
+                return ".<" + args.get(0) + ">lazy(" + literal(name) + ", " + template(args.get(0), indent) + ", " + getter + ", " + setter + ")";
+            }
+
+            if (isAssignable(type, "java.util.List")) {
+                List<? extends TypeMirror> args = getTypeArguments(type, "java.util.List");
+                String factory = factory(type, "java.util.ArrayList");
+                return ".<" + type + ">list(" + literal(name) + ", " + template(args.get(0), indent) + ", " + factory + ", " + getter + ", " + setter + ")";
+            }
+
+            if (type.getKind() != TypeKind.DECLARED) {
+                throw new Unsupported("unsupported type " + type + " for field " + name);
+            }
+
+            TypeElement element = (TypeElement) types.asElement(type);
+            return ".object(" + literal(name) + ", " + object(element, indent) + ", " + getter + ", " + setter + ")";
+        }
+
+        /**
+         * Element templates of maps & lists. Object types are described inline (resolving through Mapper.of(..) at
+         * runtime if they have a registered codec), everything else resolves through Mapper.of(..) which builds value
+         * nodes without any field scanning
+         */
+        private String template(TypeMirror type, String indent) throws Unsupported {
+            if (type.getKind() != TypeKind.DECLARED || !((DeclaredType) type).getTypeArguments().isEmpty()) {
+                throw new Unsupported("unresolved element type " + type);
+            }
+
+            TypeElement element = (TypeElement) types.asElement(type);
+            if (isValue(type) || isAssignable(type, "java.util.Map") || isAssignable(type, "java.util.List")) {
+                checkAccessible(element);
+                return "Mapper.of(" + element.getQualifiedName() + ".class)";
+            }
+
+            return object(element, indent) + "\n" + indent + "        .build()";
+        }
+
+        private String factory(TypeMirror type, String fallback) {
+            TypeElement element = (TypeElement) types.asElement(types.erasure(type));
+            boolean concrete = element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT);
+            if (concrete && hasPublicConstructor(element)) {
+                return element.getQualifiedName() + "::new";
+            }
+            return fallback + "::new";
+        }
+
+        private boolean isValue(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return true;
+            }
+            if (type.getKind() != TypeKind.DECLARED) {
+                return false;
+            }
+            TypeElement element = (TypeElement) types.asElement(type);
+            return element.getKind() == ElementKind.ENUM || VALUES.contains(element.getQualifiedName().toString());
+        }
+
+        private boolean isAssignable(TypeMirror type, String name) {
+            TypeElement target = elements.getTypeElement(name);
+            return type.getKind() == TypeKind.DECLARED && types.isAssignable(types.erasure(type), types.erasure(target.asType()));
+        }
+
+        private List<? extends TypeMirror> getTypeArguments(TypeMirror type, String name) throws Unsupported {
+            Deque<TypeMirror> queue = new ArrayDeque<>();
+            queue.add(type);
+            while (!queue.isEmpty()) {
+                TypeMirror next = queue.poll();
+                TypeElement element = (TypeElement) types.asElement(next);
+                if (element.getQualifiedName().contentEquals(name)) {
+                    List<? extends TypeMirror> args = ((DeclaredType) next).getTypeArguments();
+                    if (args.isEmpty()) {
+                        break;
+                    }
+                    return args;
+                }
+                queue.addAll(types.directSupertypes(next));
+            }
+            throw new Unsupported("could not resolve type arguments of " + type);
+        }
+
+        private String classLiteral(TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return type.toString() + ".class";
+            }
+            return ((TypeElement) types.asElement(type)).getQualifiedName() + ".class";
+        }
+
+        private void checkAccessible(TypeElement type) throws Unsupported {
+            for (Element e = type; e.getKind().isClass() || e.getKind().isInterface(); e = e.getEnclosingElement()) {
+                if (!isAccessible(e)) {
+                    throw new Unsupported("type " + type.getQualifiedName() + " is not accessible");
+                }
+            }
+        }
+
+        private boolean isAccessible(Element element) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PUBLIC)) {
+                return true;
+            }
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            return elements.getPackageOf(element).equals(pkg);
+        }
+
+        private boolean hasPublicConstructor(TypeElement type) {
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private AnnotationMirror getAnnotation(Element element, String name) {
+            for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+                TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+                if (type.getQualifiedName().contentEquals(name)) {
+                    return mirror;
+                }
+            }
+            return null;
+        }
+
+        private Map<String, Object> getValues(AnnotationMirror mirror) {
+            Map<String, Object> values = new HashMap<>();
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+                values.put(e.getKey().getSimpleName().toString(), e.getValue().getValue());
+            }
+            return values;
+        }
+
+        @SuppressWarnings("unchecked")
+        private String strings(Object value) {
+            StringBuilder builder = new StringBuilder();
+            for (AnnotationValue item : (List<? extends AnnotationValue>) value) {
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(literal((String) item.getValue()));
+            }
+            return builder.toString();
+        }
+
+        private String literal(String value) {
+            StringBuilder builder = new StringBuilder("\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        builder.append("\\\"");
+                        break;
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20 || c > 0x7e) {
+                            builder.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            builder.append(c);
+                        }
+                }
+            }
+            return builder.append('"').toString();
+        }
+    }
+
+    private static class Unsupported extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private Unsupported(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package me.dags.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Accessors used by the nodes against plain java.lang.reflect.Field access, and against MethodHandles
+ * held in fields as the nodes would hold them (the approach the Accessors do not take, as it measured no faster)
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark {
+
+    public static class Target {
+        private int number = 1;
+        private String text = "text";
+    }
+
+    private final Target target = new Target();
+
+    private Field numberField;
+    private Field textField;
+    private Accessor number;
+    private Accessor text;
+    private MethodHandle numberGetter;
+    private MethodHandle numberSetter;
+    private MethodHandle textGetter;
+    private MethodHandle textSetter;
+    private int counter;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        numberField = Target.class.getDeclaredField("number");
+        numberField.setAccessible(true);
+        textField = Target.class.getDeclaredField("text");
+        textField.setAccessible(true);
+        number = Accessor.of(numberField);
+        text = Accessor.of(textField);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        numberGetter = lookup.unreflectGetter(numberField).asType(MethodType.methodType(int.class, Object.class));
+        numberSetter = lookup.unreflectSetter(numberField).asType(MethodType.methodType(void.class, Object.class, int.class));
+        textGetter = lookup.unreflectGetter(textField).asType(MethodType.methodType(Object.class, Object.class));
+        textSetter = lookup.unreflectSetter(textField).asType(MethodType.methodType(void.class, Object.class, Object.class));
+    }
+
+    @Benchmark
+    public int reflectGetInt() throws IllegalAccessException {
+        return numberField.getInt(target);
+    }
+
+    @Benchmark
+    public int accessorGetInt() throws IllegalAccessException {
+        return number.getInt(target);
+    }
+
+    @Benchmark
+    public int handleGetInt() throws Throwable {
+        return (int) numberGetter.invokeExact((Object) target);
+    }
+
+    @Benchmark
+    public void reflectSetInt() throws IllegalAccessException {
+        numberField.setInt(target, counter++);
+    }
+
+    @Benchmark
+    public void accessorSetInt() throws IllegalAccessException {
+        number.setInt(target, counter++);
+    }
+
+    @Benchmark
+    public void handleSetInt() throws Throwable {
+        numberSetter.invokeExact((Object) target, counter++);
+    }
+
+    @Benchmark
+    public Object reflectGetObject() throws IllegalAccessException {
+        return textField.get(target);
+    }
+
+    @Benchmark
+    public Object accessorGetObject() throws IllegalAccessException {
+        return text.get(target);
+    }
+
+    @Benchmark
+    public Object handleGetObject() throws Throwable {
+        return textGetter.invokeExact((Object) target);
+    }
+
+    @Benchmark
+    public void reflectSetObject() throws IllegalAccessException {
+        textField.set(target, "text");
+    }
+
+    @Benchmark
+    public void accessorSetObject() throws IllegalAccessException {
+        text.set(target, "text");
+    }
+
+    @Benchmark
+    public void handleSetObject() throws Throwable {
+        textSetter.invokeExact((Object) target, (Object) "text");
+    }
+}
@@ -0,0 +1,304 @@
+package me.dags.config;
+
+import me.dags.config.style.Comment;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Documents of various shapes for the benchmarks, generated from a fixed seed so that every run (and every fork)
+ * works on exactly the same text. Each document is built from repeated units and scaled to roughly the requested
+ * size
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Datasets {
+
+    enum Shape {
+        // records made up only of value fields
+        FLAT,
+        // objects nested six levels deep
+        DEEP,
+        // a single large map of values
+        MAP,
+        // large lists of values
+        LIST,
+        // records with several comment lines per field
+        COMMENTS,
+        // long multi-line strings, written between backticks
+        BACKTICK,
+        // records of enums, UUIDs and other values read through codecs
+        TYPED,
+    }
+
+    private static final long SEED = 0xC0FFEE;
+
+    private Datasets() {
+
+    }
+
+    static Dataset<?> create(Shape shape, int kilobytes) throws Exception {
+        switch (shape) {
+            case FLAT:
+                return Dataset.of(Mapper.of(Flat.class), kilobytes, Datasets::flat);
+            case DEEP:
+                return Dataset.of(Mapper.of(Deep.class), kilobytes, Datasets::deep);
+            case MAP:
+                return Dataset.of(Mapper.of(Values.class), kilobytes, Datasets::map);
+            case LIST:
+                return Dataset.of(Mapper.of(Lists.class), kilobytes, Datasets::list);
+            case COMMENTS:
+                return Dataset.of(Mapper.of(Commented.class), kilobytes, Datasets::comments);
+            case BACKTICK:
+                return Dataset.of(Mapper.of(Texts.class), kilobytes, Datasets::backtick);
+            case TYPED:
+                return Dataset.of(Mapper.of(Events.class), kilobytes, Datasets::typed);
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    private static Flat flat(int units) {
+        Random random = new Random(SEED);
+        Flat flat = new Flat();
+        for (int i = 0; i < units; i++) {
+            flat.add(record(random, i));
+        }
+        return flat;
+    }
+
+    private static Deep deep(int units) {
+        Random random = new Random(SEED);
+        Deep deep = new Deep();
+        for (int i = 0; i < units; i++) {
+            Level1 level1 = new Level1();
+            level1.id = random.nextInt();
+            for (int j = 0; j < 2; j++) {
+                Level2 level2 = new Level2();
+                level2.name = "level2-" + Long.toHexString(random.nextLong());
+                for (int k = 0; k < 2; k++) {
+                    Level3 level3 = new Level3();
+                    level3.weight = random.nextInt(10000) / 100D;
+                    level3.next.next.next.leaf = record(random, k);
+                    level2.children.add(level3);
+                }
+                level1.children.add(level2);
+            }
+            deep.add(level1);
+        }
+        return deep;
+    }
+
+    private static Values map(int units) {
+        Random random = new Random(SEED);
+        Values values = new Values();
+        for (int i = 0; i < units; i++) {
+            values.put("key-" + i + "-" + Integer.toHexString(random.nextInt()), random.nextLong());
+        }
+        return values;
+    }
+
+    private static Lists list(int units) {
+        Random random = new Random(SEED);
+        Lists lists = new Lists();
+        for (int i = 0; i < units; i++) {
+            lists.words.add("word" + Integer.toHexString(random.nextInt()));
+            lists.numbers.add(random.nextInt(1000000) / 1000D);
+        }
+        return lists;
+    }
+
+    private static Commented comments(int units) {
+        Random random = new Random(SEED);
+        Commented commented = new Commented();
+        for (int i = 0; i < units; i++) {
+            Notes notes = new Notes();
+            notes.name = "notes-" + Long.toHexString(random.nextLong());
+            notes.limit = random.nextInt(1000);
+            notes.enabled = random.nextBoolean();
+            commented.add(notes);
+        }
+        return commented;
+    }
+
+    private static Texts backtick(int units) {
+        Random random = new Random(SEED);
+        Texts texts = new Texts();
+        for (int i = 0; i < units; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int line = 0; line < 32; line++) {
+                if (line > 0) {
+                    text.append('\n');
+                }
+                text.append("line ").append(line).append(": {value} [").append(random.nextInt()).append("] # not a comment");
+            }
+            texts.put("text" + i, text.toString());
+        }
+        return texts;
+    }
+
+    private static Events typed(int units) {
+        Random random = new Random(SEED);
+        Level[] levels = Level.values();
+        Events events = new Events();
+        for (int i = 0; i < units; i++) {
+            Event event = new Event();
+            event.id = new UUID(random.nextLong(), random.nextLong());
+            event.source = new UUID(random.nextLong(), random.nextLong());
+            event.level = levels[random.nextInt(levels.length)];
+            event.fallback = levels[random.nextInt(levels.length)];
+            event.time = Instant.ofEpochSecond(1500000000L + random.nextInt(100000000));
+            event.timeout = Duration.ofMillis(random.nextInt(1000000));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static Record record(Random random, int index) {
+        Record record = new Record();
+        record.name = "record-" + Long.toHexString(random.nextLong());
+        record.id = index;
+        record.count = random.nextLong();
+        record.ratio = random.nextDouble();
+        record.scale = random.nextFloat();
+        record.enabled = random.nextBoolean();
+        record.level = (short) random.nextInt(Short.MAX_VALUE);
+        record.flags = (byte) random.nextInt(Byte.MAX_VALUE);
+        record.description = "generated record number " + index;
+        return record;
+    }
+
+    interface Generator<T> {
+
+        T generate(int units) throws Exception;
+    }
+
+    static final class Dataset<T> {
+
+        final Mapper<T> mapper;
+        final T value;
+        final String text;
+
+        private Dataset(Mapper<T> mapper, T value, String text) {
+            this.mapper = mapper;
+            this.value = value;
+            this.text = text;
+        }
+
+        /**
+         * Measures the size that one more unit adds to a document, then generates as many units as fit the
+         * requested size
+         */
+        private static <T> Dataset<T> of(Mapper<T> mapper, int kilobytes, Generator<T> generator) throws Exception {
+            int one = render(mapper, generator.generate(1)).length();
+            int two = render(mapper, generator.generate(2)).length();
+            int units = Math.max(1, kilobytes * 1024 / Math.max(1, two - one));
+            T value = generator.generate(units);
+            return new Dataset<>(mapper, value, render(mapper, value));
+        }
+
+        private static <T> String render(Mapper<T> mapper, T value) throws Exception {
+            StringWriter writer = new StringWriter();
+            mapper.write(value, writer);
+            return writer.toString();
+        }
+    }
+
+    public static class Record {
+        public String name = "";
+        public int id = 0;
+        public long count = 0;
+        public double ratio = 0;
+        public float scale = 0;
+        public boolean enabled = false;
+        public short level = 0;
+        public byte flags = 0;
+        public String description = "";
+    }
+
+    public static class Flat extends ArrayList<Record> {
+        private final Flat $self = this;
+    }
+
+    public static class Level1 {
+        public int id = 0;
+        public List<Level2> children = new ArrayList<>();
+    }
+
+    public static class Level2 {
+        public String name = "";
+        public List<Level3> children = new ArrayList<>();
+    }
+
+    public static class Level3 {
+        public double weight = 0;
+        public Level4 next = new Level4();
+    }
+
+    public static class Level4 {
+        public Level5 next = new Level5();
+    }
+
+    public static class Level5 {
+        public Level6 next = new Level6();
+    }
+
+    public static class Level6 {
+        public Record leaf = new Record();
+    }
+
+    public static class Deep extends ArrayList<Level1> {
+        private final Deep $self = this;
+    }
+
+    public static class Values extends LinkedHashMap<String, Long> {
+        private final Values $self = this;
+    }
+
+    public static class Lists {
+        public List<String> words = new ArrayList<>();
+        public List<Double> numbers = new ArrayList<>();
+    }
+
+    public static class Notes {
+        @Comment({"The name that the notes are listed under.", "Names need not be unique but it helps."})
+        public String name = "";
+
+        @Comment({"The most entries to keep before old ones are dropped.", "Zero means no limit.", "Negative values are treated as zero."})
+        public int limit = 0;
+
+        @Comment({"Whether the notes are shown at all.", "Disabled notes are still saved."})
+        public boolean enabled = false;
+    }
+
+    public static class Commented extends ArrayList<Notes> {
+        private final Commented $self = this;
+    }
+
+    public static class Texts extends LinkedHashMap<String, String> {
+        private final Texts $self = this;
+    }
+
+    public enum Level {
+        TRACE, DEBUG, INFO, NOTICE, WARNING, ERROR, CRITICAL, ALERT, EMERGENCY, OFF
+    }
+
+    public static class Event {
+        public UUID id = new UUID(0, 0);
+        public UUID source = new UUID(0, 0);
+        public Level level = Level.INFO;
+        public Level fallback = Level.OFF;
+        public Instant time = Instant.EPOCH;
+        public Duration timeout = Duration.ZERO;
+    }
+
+    public static class Events extends ArrayList<Event> {
+        private final Events $self = this;
+    }
+}
@@ -0,0 +1,78 @@
+package me.dags.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write throughput for each shape of generated document at several sizes. The 'chars' counter reports
+ * the text read or written per second. Run with -prof gc to see the allocation rate alongside
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentBenchmark {
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counter {
+        public long chars;
+    }
+
+    // Datasets.Shape names; held as text since the generated benchmark code cannot see the package-private enum
+    @Param({"FLAT", "DEEP", "MAP", "LIST", "COMMENTS", "BACKTICK", "TYPED"})
+    public String shape;
+
+    @Param({"16", "1024", "16384"})
+    public int kilobytes;
+
+    private Datasets.Dataset<Object> dataset;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        dataset = (Datasets.Dataset<Object>) Datasets.create(Datasets.Shape.valueOf(shape), kilobytes);
+    }
+
+    @Benchmark
+    public Object read(Counter counter) throws Exception {
+        counter.chars += dataset.text.length();
+        return dataset.mapper.read(new StringReader(dataset.text));
+    }
+
+    @Benchmark
+    public void write(Counter counter) throws Exception {
+        counter.chars += dataset.text.length();
+        dataset.mapper.write(dataset.value, Discard.INSTANCE);
+    }
+
+    /**
+     * A Writer that drops its input, so that only the cost of rendering is measured
+     */
+    private static final class Discard extends Writer {
+
+        private static final Discard INSTANCE = new Discard();
+
+        @Override
+        public void write(char[] chars, int off, int len) {
+
+        }
+
+        @Override
+        public void flush() {
+
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+}
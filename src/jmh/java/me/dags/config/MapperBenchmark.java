@@ -0,0 +1,90 @@
+package me.dags.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of building node trees, both through the template cache and from scratch, and of reading and writing
+ * single values by path, both by name and through compiled ConfigPaths
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final Datasets.Level3 target = new Datasets.Level3();
+
+    private Mapper<Datasets.Level3> mapper;
+    private ConfigPath<Datasets.Level3, Double> weight;
+    private ConfigPath<Datasets.Level3, Integer> leafId;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        mapper = Mapper.of(Datasets.Level3.class);
+        weight = mapper.path(Double.class, "weight");
+        leafId = mapper.path(Integer.class, "next", "next", "next", "leaf", "id");
+    }
+
+    @Benchmark
+    public Mapper<Datasets.Record> cachedLookup() {
+        return Mapper.of(Datasets.Record.class);
+    }
+
+    @Benchmark
+    public Object buildFlat() {
+        return ClassMapper.createNode(Datasets.Record.class);
+    }
+
+    @Benchmark
+    public Object buildNested() {
+        return ClassMapper.createNode(Datasets.Level3.class);
+    }
+
+    @Benchmark
+    public Optional<?> getShallow() {
+        return mapper.getValue(target, "weight");
+    }
+
+    @Benchmark
+    public Optional<?> getDeep() {
+        return mapper.getValue(target, "next", "next", "next", "leaf", "id");
+    }
+
+    @Benchmark
+    public void setShallow() {
+        mapper.setValue(target, (double) counter++, "weight");
+    }
+
+    @Benchmark
+    public void setDeep() {
+        mapper.setValue(target, counter++, "next", "next", "next", "leaf", "id");
+    }
+
+    @Benchmark
+    public double pathGetShallow() {
+        return weight.getDouble(target, 0D);
+    }
+
+    @Benchmark
+    public int pathGetDeep() {
+        return leafId.getInt(target, 0);
+    }
+
+    @Benchmark
+    public void pathSetShallow() {
+        weight.setDouble(target, counter++);
+    }
+
+    @Benchmark
+    public void pathSetDeep() {
+        leafId.setInt(target, counter++);
+    }
+}
@@ -0,0 +1,75 @@
+package me.dags.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential against parallel reads of a generated document whose root is a large map, the shape that
+ * Mapper.readParallel splits across the common pool
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelReadBenchmark {
+
+    public static class Entry {
+        public String name = "";
+        public int id = 0;
+        public double weight = 0;
+        public boolean enabled = false;
+        public String description = "";
+    }
+
+    public static class Document extends LinkedHashMap<String, Entry> {
+        private final Document $self = this;
+    }
+
+    @Param({"8", "64"})
+    public int megabytes;
+
+    private Mapper<Document> mapper;
+    private String text;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = Mapper.of(Document.class);
+
+        Random random = new Random(megabytes);
+        Document document = new Document();
+        int entries = megabytes * 1024 * 1024 / 128;
+        for (int i = 0; i < entries; i++) {
+            Entry entry = new Entry();
+            entry.name = "entry-" + Long.toHexString(random.nextLong());
+            entry.id = random.nextInt();
+            entry.weight = random.nextInt(100000) / 100D;
+            entry.enabled = random.nextBoolean();
+            entry.description = "generated entry number " + i;
+            document.put("key" + i, entry);
+        }
+
+        StringWriter writer = new StringWriter();
+        mapper.write(document, writer);
+        text = writer.toString();
+    }
+
+    @Benchmark
+    public Document sequential() throws Exception {
+        return mapper.read(new StringReader(text));
+    }
+
+    @Benchmark
+    public Document parallel() throws Exception {
+        return mapper.readParallel(new StringReader(text), ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,78 @@
+package me.dags.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser throughput over generated multi-megabyte documents, read through Mapper.read(InputStream) which hands the
+ * parser an unbuffered InputStreamReader. The 'bytes' counter reports input bytes consumed per second
+ *
+ * @author dags <dags@dags.me>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    public static class Entry {
+        public String name = "";
+        public int id = 0;
+        public double weight = 0;
+        public boolean enabled = false;
+        public String description = "";
+    }
+
+    public static class Document {
+        public Map<String, Entry> entries = new LinkedHashMap<>();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counter {
+        public long bytes;
+    }
+
+    @Param({"1", "8", "32"})
+    public int megabytes;
+
+    private Mapper<Document> mapper;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = Mapper.of(Document.class);
+
+        Random random = new Random(megabytes);
+        Document document = new Document();
+        int entries = megabytes * 1024 * 1024 / 128;
+        for (int i = 0; i < entries; i++) {
+            Entry entry = new Entry();
+            entry.name = "entry-" + Long.toHexString(random.nextLong());
+            entry.id = random.nextInt();
+            entry.weight = random.nextInt(100000) / 100D;
+            entry.enabled = random.nextBoolean();
+            entry.description = "generated entry number " + i;
+            document.entries.put("key" + i, entry);
+        }
+
+        StringWriter writer = new StringWriter();
+        mapper.write(document, writer);
+        data = writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Document read(Counter counter) throws Exception {
+        counter.bytes += data.length;
+        return mapper.read(new ByteArrayInputStream(data));
+    }
+}
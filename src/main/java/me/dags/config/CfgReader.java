@@ -0,0 +1,223 @@
+package me.dags.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A pull parser over cfg text that does not need a mapped type. Each call to next() advances to the next token and
+ * the text of the current key or value is available from text() until the following call, so documents of any
+ * size can be scanned in constant memory.
+ * <p>
+ * The root of a document is reported as START_OBJECT (or START_LIST) and its matching end, followed by
+ * END_DOCUMENT. As the format carries no type information, a value that begins with '{' or '[' is always reported
+ * as the start of an object or list
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class CfgReader implements Closeable {
+
+    public enum Token {
+        START_OBJECT,
+        END_OBJECT,
+        START_LIST,
+        END_LIST,
+        KEY,
+        VALUE,
+        END_DOCUMENT,
+    }
+
+    private static final byte OBJECT = 0;
+    private static final byte LIST = 1;
+
+    private final Tokenizer tokenizer;
+    private final boolean rootList;
+
+    private byte[] stack = new byte[16];
+    private int depth = -1;
+    private boolean started = false;
+    private boolean value = false;
+    private Token current = null;
+    private CharSequence text = "";
+
+    private CfgReader(Reader reader, boolean rootList) {
+        this(new Tokenizer(reader), rootList);
+    }
+
+    private CfgReader(Tokenizer tokenizer, boolean rootList) {
+        this.tokenizer = tokenizer;
+        this.rootList = rootList;
+    }
+
+    /**
+     * Advances to and returns the next token
+     */
+    public Token next() throws IOException {
+        text = "";
+        current = advance();
+        return current;
+    }
+
+    /**
+     * The current token, or null if next() has not been called
+     */
+    public Token current() {
+        return current;
+    }
+
+    /**
+     * The text of the current KEY or VALUE. Only valid until the next call to next(); use toString() to retain it
+     */
+    public CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Nesting depth of the current token, where the root object or list is at depth 0
+     */
+    public int depth() {
+        return current == Token.START_OBJECT || current == Token.START_LIST ? depth : depth + 1;
+    }
+
+    /**
+     * If the current token starts an object or list, skips to its matching end token. If it is a KEY, skips its
+     * value. Other tokens are left as they are
+     */
+    public void skip() throws IOException {
+        if (current == Token.KEY) {
+            Token next = next();
+            if (next != Token.START_OBJECT && next != Token.START_LIST) {
+                return;
+            }
+        }
+
+        if (current == Token.START_OBJECT || current == Token.START_LIST) {
+            int target = depth - 1;
+            while (depth > target && next() != Token.END_DOCUMENT) {
+                // consume
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        tokenizer.close();
+    }
+
+    private Token advance() throws IOException {
+        if (!started) {
+            started = true;
+            return push(rootList ? LIST : OBJECT);
+        }
+
+        if (depth < 0) {
+            return Token.END_DOCUMENT;
+        }
+
+        if (stack[depth] == OBJECT && !value) {
+            return nextKey();
+        }
+
+        return nextValue();
+    }
+
+    private Token nextKey() throws IOException {
+        tokenizer.skipComments();
+
+        char peek = tokenizer.peek();
+        if (peek == Tokenizer.EOF || peek == Render.END_OBJECT && depth > 0) {
+            if (peek != Tokenizer.EOF) {
+                tokenizer.consume();
+            }
+            return pop(Token.END_OBJECT);
+        }
+
+        boolean quoted = peek == Render.QUOTE || peek == Render.ESCAPE;
+        text = tokenizer.nextToken(true);
+        if (quoted) {
+            // the assign char follows the closing quote
+            tokenizer.skipSpace(false);
+            if (tokenizer.peek() == Render.ASSIGN) {
+                tokenizer.consume();
+            }
+        }
+
+        value = true;
+        return Token.KEY;
+    }
+
+    private Token nextValue() throws IOException {
+        boolean list = stack[depth] == LIST;
+        if (list) {
+            tokenizer.skipSpace(true);
+            char peek = tokenizer.peek();
+            if (peek == Tokenizer.EOF || peek == Render.END_LIST && depth > 0) {
+                if (peek != Tokenizer.EOF) {
+                    tokenizer.consume();
+                }
+                return pop(Token.END_LIST);
+            }
+        } else {
+            tokenizer.skipSpace(false);
+        }
+
+        value = false;
+
+        char peek = tokenizer.peek();
+        if (peek == Render.START_OBJECT) {
+            tokenizer.consume();
+            return push(OBJECT);
+        }
+
+        if (peek == Render.START_LIST) {
+            tokenizer.consume();
+            return push(LIST);
+        }
+
+        text = tokenizer.nextToken(false);
+        return Token.VALUE;
+    }
+
+    private Token push(byte type) {
+        if (++depth == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length << 1);
+        }
+        stack[depth] = type;
+        value = false;
+        return type == OBJECT ? Token.START_OBJECT : Token.START_LIST;
+    }
+
+    private Token pop(Token token) {
+        depth--;
+        value = false;
+        return token;
+    }
+
+    /**
+     * Skips the tokenizer over the value at its current position, including any object or list it opens
+     */
+    static void skipValue(Tokenizer tokenizer) throws IOException {
+        CfgReader reader = new CfgReader(tokenizer, false);
+        // stand in for the object that holds the value
+        reader.started = true;
+        reader.push(OBJECT);
+        reader.value = true;
+        reader.next();
+        reader.skip();
+    }
+
+    /**
+     * Reads a document whose root is an object (or map)
+     */
+    public static CfgReader of(Reader reader) {
+        return new CfgReader(reader, false);
+    }
+
+    /**
+     * Reads a document whose root is a list
+     */
+    public static CfgReader ofList(Reader reader) {
+        return new CfgReader(reader, true);
+    }
+}
@@ -0,0 +1,133 @@
+package me.dags.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the next occurrence of one of a few chars in a char array, testing four chars at a time by reading the
+ * array as longs and checking each 16-bit lane for a match (SWAR). Reads are kept to aligned words, with the few
+ * chars either side of them checked one at a time. Unsafe is looked up reflectively, bound into a MethodHandle that
+ * the JIT reduces to a plain load, and the scanner falls back to a simple loop if it is not available
+ *
+ * @author dags <dags@dags.me>
+ */
+final class CharScanner {
+
+    private static final MethodHandle GET_LONG;
+    private static final long BASE;
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private static final long LANES = 0x0001000100010001L;
+    private static final long LOW_BITS = 0x7FFF7FFF7FFF7FFFL;
+
+    static {
+        MethodHandle getLong = null;
+        long base = 0;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            base = (Integer) type.getMethod("arrayBaseOffset", Class.class).invoke(unsafe, char[].class);
+            if ((Integer) type.getMethod("arrayIndexScale", Class.class).invoke(unsafe, char[].class) == 2) {
+                MethodType signature = MethodType.methodType(long.class, Object.class, long.class);
+                getLong = MethodHandles.lookup().findVirtual(type, "getLong", signature).bindTo(unsafe);
+            }
+        } catch (Throwable t) {
+            getLong = null;
+        }
+        GET_LONG = getLong;
+        BASE = base;
+    }
+
+    private CharScanner() {
+
+    }
+
+    /**
+     * Returns the index of the first c in chars[from, to), or 'to' if there is none
+     */
+    static int indexOf(char[] chars, int from, int to, char c) {
+        return indexOf(chars, from, to, c, c, c);
+    }
+
+    static int indexOf(char[] chars, int from, int to, char c1, char c2) {
+        return indexOf(chars, from, to, c1, c2, c2);
+    }
+
+    static int indexOf(char[] chars, int from, int to, char c1, char c2, char c3) {
+        int i = from;
+        if (GET_LONG != null) {
+            // check single chars until the reads line up with a word boundary
+            while (i < to && ((BASE + ((long) i << 1)) & 7) != 0) {
+                char c = chars[i];
+                if (c == c1 || c == c2 || c == c3) {
+                    return i;
+                }
+                i++;
+            }
+
+            long p1 = c1 * LANES;
+            long p2 = c2 * LANES;
+            long p3 = c3 * LANES;
+
+            // eight chars per pass, only working out which lane matched once a pass has found one
+            for (int end = to - 7; i < end; i += 8) {
+                long w1 = getLong(chars, i);
+                long w2 = getLong(chars, i + 4);
+                if ((anyZero(w1 ^ p1) | anyZero(w1 ^ p2) | anyZero(w1 ^ p3)
+                        | anyZero(w2 ^ p1) | anyZero(w2 ^ p2) | anyZero(w2 ^ p3)) != 0) {
+                    break;
+                }
+            }
+
+            for (int end = to - 3; i < end; i += 4) {
+                long word = getLong(chars, i);
+                long found = zeroLanes(word ^ p1) | zeroLanes(word ^ p2) | zeroLanes(word ^ p3);
+                if (found != 0) {
+                    int lane = LITTLE_ENDIAN ? Long.numberOfTrailingZeros(found) : Long.numberOfLeadingZeros(found);
+                    return i + (lane >>> 4);
+                }
+            }
+        }
+
+        for (; i < to; i++) {
+            char c = chars[i];
+            if (c == c1 || c == c2 || c == c3) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Reads chars[index, index + 4) as a single long
+     */
+    private static long getLong(char[] chars, int index) {
+        try {
+            return (long) GET_LONG.invokeExact((Object) chars, BASE + ((long) index << 1));
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * Non-zero if any 16-bit lane of the word is zero. Cheaper than zeroLanes, but lanes above a zero lane may be
+     * flagged too, so it only says whether there is a match and not where
+     */
+    private static long anyZero(long word) {
+        return (word - LANES) & ~word & ~LOW_BITS;
+    }
+
+    /**
+     * Sets the top bit of each 16-bit lane of the word that is zero. Unlike the shorter (x - 1) & ~x form this never
+     * flags a lane falsely, so the result can be read from either end
+     */
+    private static long zeroLanes(long word) {
+        long low = (word & LOW_BITS) + LOW_BITS;
+        return ~(low | word | LOW_BITS);
+    }
+}
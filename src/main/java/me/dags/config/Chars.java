@@ -0,0 +1,52 @@
+package me.dags.config;
+
+/**
+ * Precomputed character classes for the ASCII range, letting the tokenizer classify a char with a single table
+ * lookup rather than a chain of comparisons or a call to Character.isWhitespace
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Chars {
+
+    static final int WHITESPACE = 1;
+    static final int LINE_BREAK = 1 << 1;
+    static final int ASSIGN = 1 << 2;
+    static final int STRUCTURAL = 1 << 3;
+
+    private static final byte[] TABLE = new byte[128];
+
+    static {
+        for (char c = 0; c < TABLE.length; c++) {
+            if (Character.isWhitespace(c)) {
+                TABLE[c] |= WHITESPACE;
+            }
+        }
+
+        TABLE[Render.NEWLINE] |= LINE_BREAK;
+        TABLE[Render.LINE_SEPARATOR] |= LINE_BREAK;
+        TABLE[Render.ASSIGN] |= ASSIGN;
+
+        for (char c : new char[]{
+                Render.START_OBJECT, Render.END_OBJECT, Render.START_LIST, Render.END_LIST,
+                Render.ASSIGN, Render.COMMENT, Render.ESCAPE, Render.QUOTE
+        }) {
+            TABLE[c] |= STRUCTURAL;
+        }
+    }
+
+    private Chars() {
+
+    }
+
+    static boolean is(char c, int mask) {
+        return c < 128 && (TABLE[c] & mask) != 0;
+    }
+
+    static boolean isWhitespace(char c) {
+        return c < 128 ? (TABLE[c] & WHITESPACE) != 0 : Character.isWhitespace(c);
+    }
+
+    static boolean isLineBreak(char c) {
+        return c < 128 && (TABLE[c] & LINE_BREAK) != 0;
+    }
+}
@@ -7,28 +7,62 @@ import me.dags.config.style.Style;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * @author dags <dags@dags.me>
  */
 class ClassMapper {
 
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    /**
+     * Node templates are immutable so can be shared between all callers. ClassValue ties each entry to the
+     * lifetime of its class so the cache does not hold on to unloaded classloaders
+     */
+    private static final ClassValue<Template<?>> templates = new ClassValue<Template<?>>() {
+        @Override
+        protected Template<?> computeValue(Class<?> type) {
+            return new Template<>(type);
+        }
+    };
+
     private ClassMapper() {
 
     }
 
+    @SuppressWarnings("unchecked")
     static <T> Node<T> getNode(Class<T> type) {
-        return createNode(type);
+        return ((Template<T>) templates.get(type)).get();
+    }
+
+    static long getHits() {
+        return hits.sum();
+    }
+
+    static long getMisses() {
+        return misses.sum();
     }
 
+    /**
+     * Builds the node tree for the type without going through the template cache. Nested types are still looked up
+     * in the cache
+     */
     @SuppressWarnings("unchecked")
-    private static <T> Node<T> createNode(Class<T> type) {
+    static <T> Node<T> createNode(Class<T> type) {
         if (isPrimitive(type)) {
-            return new ValueNode(null, getParser(type), null);
+            return new ValueNode(type, Codecs.get(type));
+        }
+
+        if (type.isAnnotationPresent(Generate.class)) {
+            Node<T> generated = createGeneratedNode(type);
+            if (generated != null) {
+                return generated;
+            }
         }
 
         try {
@@ -44,6 +78,24 @@ class ClassMapper {
         return createObjectNode(type, null);
     }
 
+    /**
+     * Loads the Mapper generated for the type by the cfg-processor, if it was run over the type's sources
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T> createGeneratedNode(Class<T> type) {
+        String name = type.getName().replace('$', '_') + "_Mapper";
+        try {
+            Class<?> generated = Class.forName(name, true, type.getClassLoader());
+            Supplier<?> supplier = (Supplier<?>) generated.newInstance();
+            return (Node<T>) supplier.get();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     private static <T> Node<T> createObjectNode(Class<T> c, Field parent) {
         ObjectNode.Builder<T> builder = ObjectNode.builder(c, parent);
 
@@ -83,7 +135,10 @@ class ClassMapper {
             if (field.isAnnotationPresent(Default.class)) {
                 def = field.getAnnotation(Default.class).value();
             }
-            return new ValueNode(field, getParser(type), def);
+            if (PrimitiveNode.isSupported(type)) {
+                return PrimitiveNode.of(Accessor.of(field), def);
+            }
+            return new ValueNode(field, Codecs.get(type), def);
         }
 
         if (Map.class.isAssignableFrom(type)) {
@@ -94,6 +149,10 @@ class ClassMapper {
             return new ListNode(field);
         }
 
+        if (type == Lazy.class) {
+            return new LazyNode(field);
+        }
+
         return createObjectNode(field.getType(), field);
     }
 
@@ -102,45 +161,36 @@ class ClassMapper {
     }
 
     private static boolean isPrimitive(Class<?> type) {
-        return type.isPrimitive() || type.isEnum() || PRIMITIVES.containsKey(type);
+        return type.isPrimitive() || Codecs.contains(type);
     }
 
-    private static Function<String, ?> getParser(Class<?> type) {
-        if (type.isEnum()) {
-            return enumParser(type);
+    /**
+     * ClassValue may compute a value more than once under contention, so the node itself is built lazily
+     * under the template's lock to guarantee each type is only compiled once
+     */
+    private static class Template<T> {
+
+        private final Class<T> type;
+        private volatile Node<T> node;
+
+        private Template(Class<T> type) {
+            this.type = type;
         }
-        return PRIMITIVES.get(type);
-    }
 
-    private static final Map<Class<?>, Function<String, ?>> PRIMITIVES = new HashMap<Class<?>, Function<String, ?>>() {{
-        put(boolean.class, Boolean::parseBoolean);
-        put(Boolean.class, Boolean::parseBoolean);
-        put(byte.class, Byte::parseByte);
-        put(Byte.class, Byte::parseByte);
-        put(char.class, Byte::parseByte);
-        put(Character.class, Byte::parseByte);
-        put(double.class, Double::parseDouble);
-        put(Double.class, Double::parseDouble);
-        put(float.class, Float::parseFloat);
-        put(Float.class, Float::parseFloat);
-        put(int.class, Integer::parseInt);
-        put(Integer.class, Integer::parseInt);
-        put(long.class, Long::parseLong);
-        put(Long.class, Long::parseLong);
-        put(short.class, Short::parseShort);
-        put(Short.class, Short::parseShort);
-        put(String.class, s -> s);
-    }};
-
-    private static Function<String, ?> enumParser(Class<?> type) {
-        final Object[] values = type.getEnumConstants();
-        return s -> {
-            for (Object o : values) {
-                if (o.toString().equalsIgnoreCase(s)) {
-                    return o;
+        private Node<T> get() {
+            Node<T> node = this.node;
+            if (node == null) {
+                synchronized (this) {
+                    node = this.node;
+                    if (node == null) {
+                        misses.increment();
+                        this.node = node = createNode(type);
+                        return node;
+                    }
                 }
             }
-            return null;
-        };
+            hits.increment();
+            return node;
+        }
     }
 }
@@ -37,15 +37,22 @@ class ClassUtils {
         Type type = field.getGenericType();
         if (type instanceof ParameterizedType) {
             Type[] args = ((ParameterizedType) type).getActualTypeArguments();
-            if (args.length == 2) {
-                if (args[0] instanceof Class && args[1] instanceof Class) {
-                    return args;
-                }
+            if (isResolved(args)) {
+                return args;
             }
         }
         return getParamTypes(field.getType());
     }
 
+    private static boolean isResolved(Type[] args) {
+        for (Type arg : args) {
+            if (!(arg instanceof Class)) {
+                return false;
+            }
+        }
+        return args.length > 0;
+    }
+
     private static Type[] getParamTypes(Class<?> c) {
         AtomicReference<Class<?>>  reference = new AtomicReference<>();
         Map<Type, Type> mappings = new HashMap<>();
@@ -0,0 +1,289 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of ValueCodecs, holding the built-in codecs for primitives, Strings and common value types alongside
+ * any registered through Mapper.registerCodec(..). Enums are given a codec of their own on first use
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Codecs {
+
+    private static final Map<Class<?>, ValueCodec<?>> codecs = new ConcurrentHashMap<>();
+    // only written by the static initializer
+    private static final Set<ValueCodec<?>> builtIn = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static final byte[] HEX = new byte[128];
+
+    private static final ClassValue<ValueCodec<?>> enums = new ClassValue<ValueCodec<?>>() {
+        @Override
+        protected ValueCodec<?> computeValue(Class<?> type) {
+            return new EnumCodec(type);
+        }
+    };
+
+    static {
+        Arrays.fill(HEX, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX['a' + i] = (byte) (10 + i);
+            HEX['A' + i] = (byte) (10 + i);
+        }
+
+        put(boolean.class, Numbers::parseBoolean);
+        put(Boolean.class, Numbers::parseBoolean);
+        put(byte.class, Numbers::parseByte);
+        put(Byte.class, Numbers::parseByte);
+        put(char.class, Codecs::parseChar);
+        put(Character.class, Codecs::parseChar);
+        put(double.class, Numbers::parseDouble);
+        put(Double.class, Numbers::parseDouble);
+        put(float.class, Numbers::parseFloat);
+        put(Float.class, Numbers::parseFloat);
+        put(int.class, Numbers::parseInt);
+        put(Integer.class, Numbers::parseInt);
+        put(long.class, Numbers::parseLong);
+        put(Long.class, Numbers::parseLong);
+        put(short.class, Numbers::parseShort);
+        put(Short.class, Numbers::parseShort);
+        put(String.class, CharSequence::toString);
+        put(UUID.class, Codecs::parseUUID);
+        put(Duration.class, Duration::parse);
+        put(Instant.class, Instant::parse);
+        put(BigDecimal.class, Codecs::parseDecimal);
+        put(Path.class, input -> Paths.get(input.toString()));
+        put(InetAddress.class, new AddressCodec());
+    }
+
+    private Codecs() {
+
+    }
+
+    static boolean contains(Class<?> type) {
+        return type.isEnum() || codecs.containsKey(type);
+    }
+
+    static ValueCodec<?> get(Class<?> type) {
+        if (type.isEnum()) {
+            return enums.get(type);
+        }
+        return codecs.get(type);
+    }
+
+    static void register(Class<?> type, ValueCodec<?> codec) {
+        if (type.isPrimitive()) {
+            throw new IllegalArgumentException("Cannot replace the codec of primitive type " + type);
+        }
+        if (codec == null) {
+            throw new NullPointerException("codec");
+        }
+        codecs.put(type, codec);
+    }
+
+    /**
+     * Identifies the codec in snapshot fingerprints, so that snapshots written with one codec are not read back with
+     * another. Built-in codecs are covered by the snapshot format version and have an empty id, while a registered
+     * codec is named by its class. Lambdas have no name that is stable between runs, so they are identified by
+     * instance and snapshots of their values are only reused within the same run
+     */
+    static String getId(ValueCodec<?> codec) {
+        if (codec == null || codec instanceof EnumCodec || builtIn.contains(codec)) {
+            return "";
+        }
+
+        Class<?> type = codec.getClass();
+        if (type.isSynthetic()) {
+            return type.getName() + '@' + Integer.toHexString(System.identityHashCode(codec));
+        }
+        return type.getName();
+    }
+
+    private static <T> void put(Class<T> type, ValueCodec<T> codec) {
+        codecs.put(type, codec);
+        builtIn.add(codec);
+    }
+
+    private static char parseChar(CharSequence input) {
+        if (input.length() != 1) {
+            throw new IllegalArgumentException("Not a single char: " + input);
+        }
+        return input.charAt(0);
+    }
+
+    /**
+     * Parses the canonical 8-4-4-4-12 form straight from the parser's buffer, leaving anything else to
+     * UUID.fromString
+     */
+    private static UUID parseUUID(CharSequence input) {
+        if (!(input instanceof Slice) || input.length() != 36) {
+            return UUID.fromString(input.toString());
+        }
+
+        Slice slice = (Slice) input;
+        char[] chars = slice.buffer();
+        int offset = slice.offset();
+        if (chars[offset + 8] != '-' || chars[offset + 13] != '-' || chars[offset + 18] != '-' || chars[offset + 23] != '-') {
+            return UUID.fromString(input.toString());
+        }
+
+        // parsed in groups of four digits, which are independent of one another
+        long a = hex(chars, offset);
+        long b = hex(chars, offset + 4);
+        long c = hex(chars, offset + 9);
+        long d = hex(chars, offset + 14);
+        long e = hex(chars, offset + 19);
+        long f = hex(chars, offset + 24);
+        long g = hex(chars, offset + 28);
+        long h = hex(chars, offset + 32);
+        if ((a | b | c | d | e | f | g | h) < 0) {
+            // let UUID.fromString report the bad digit
+            return UUID.fromString(input.toString());
+        }
+        return new UUID(a << 48 | b << 32 | c << 16 | d, e << 48 | f << 32 | g << 16 | h);
+    }
+
+    /**
+     * Parses four hex digits, returning -1 if any of them is not a hex digit
+     */
+    private static long hex(char[] chars, int offset) {
+        char c1 = chars[offset];
+        char c2 = chars[offset + 1];
+        char c3 = chars[offset + 2];
+        char c4 = chars[offset + 3];
+        if ((c1 | c2 | c3 | c4) >= HEX.length) {
+            return -1L;
+        }
+        int d1 = HEX[c1];
+        int d2 = HEX[c2];
+        int d3 = HEX[c3];
+        int d4 = HEX[c4];
+        if ((d1 | d2 | d3 | d4) < 0) {
+            return -1L;
+        }
+        return d1 << 12 | d2 << 8 | d3 << 4 | d4;
+    }
+
+    private static BigDecimal parseDecimal(CharSequence input) {
+        if (input instanceof Slice) {
+            Slice slice = (Slice) input;
+            return new BigDecimal(slice.buffer(), slice.offset(), slice.length());
+        }
+        return new BigDecimal(input.toString());
+    }
+
+    /**
+     * Addresses are written as their IP literal, so reading them back never requires a name lookup
+     */
+    private static class AddressCodec implements ValueCodec<InetAddress> {
+
+        @Override
+        public InetAddress read(CharSequence input) {
+            try {
+                return InetAddress.getByName(input.toString());
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Unknown host: " + input, e);
+            }
+        }
+
+        @Override
+        public void write(Appendable appendable, InetAddress value) throws IOException {
+            appendable.append(value.getHostAddress());
+        }
+    }
+
+    /**
+     * Resolves constants by name, ignoring case, through an open-addressed table built from the constants' toString()
+     * so that lookups neither copy the input nor scan the constants
+     */
+    private static class EnumCodec implements ValueCodec<Object> {
+
+        // the constants' names with each char folded to the same case, so only the input needs folding on lookup
+        private final char[][] names;
+        private final Object[] values;
+        private final int mask;
+
+        private EnumCodec(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            int size = Integer.highestOneBit(Math.max(1, constants.length) * 2 - 1) << 1;
+            this.names = new char[size][];
+            this.values = new Object[size];
+            this.mask = size - 1;
+
+            for (Object constant : constants) {
+                String name = constant.toString();
+                int i = hash(name) & mask;
+                while (names[i] != null && !matches(names[i], name)) {
+                    i = (i + 1) & mask;
+                }
+                // the first of any constants whose names differ only by case is kept
+                if (names[i] == null) {
+                    char[] folded = new char[name.length()];
+                    for (int j = 0; j < folded.length; j++) {
+                        folded[j] = fold(name.charAt(j));
+                    }
+                    names[i] = folded;
+                    values[i] = constant;
+                }
+            }
+        }
+
+        @Override
+        public Object read(CharSequence input) {
+            int i = hash(input) & mask;
+            char[] name;
+            while ((name = names[i]) != null) {
+                if (matches(name, input)) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int hash(CharSequence text) {
+            int hash = 0;
+            for (int i = 0, length = text.length(); i < length; i++) {
+                hash = 31 * hash + fold(text.charAt(i));
+            }
+            return hash ^ hash >>> 16;
+        }
+
+        private static boolean matches(char[] name, CharSequence text) {
+            if (name.length != text.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                if (name[i] != fold(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Maps upper and lower case forms of a char to the same char, as String.equalsIgnoreCase compares them
+         */
+        private static char fold(char c) {
+            if (c < 128) {
+                return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+            }
+            return Character.toLowerCase(Character.toUpperCase(c));
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package me.dags.config;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A path through a mapped type that has been resolved against its nodes up front, so that reading or writing the
+ * value at the end of it does not look up field names. Paths can pass through object fields, Lazy sections, map keys
+ * (parsed with the map's key type) and list indices. Values held in primitive fields can be read and written without
+ * boxing through the typed methods, e.g.
+ * <pre>
+ *     ConfigPath&lt;Settings, Boolean&gt; flag = Mapper.of(Settings.class).path(Boolean.class, "features", "beta");
+ *     if (flag.getBoolean(settings, false)) { ... }
+ * </pre>
+ * A ConfigPath holds no state of its own and can be shared between threads
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class ConfigPath<T, V> {
+
+    private final String name;
+    private final Class<V> type;
+    private final Class<?> boxed;
+    private final Step[] steps;
+    private final Step last;
+    private final Accessor primitive;
+
+    private ConfigPath(String name, Class<V> type, Step[] steps) {
+        this.name = name;
+        this.type = type;
+        this.boxed = box(type);
+        this.steps = steps;
+        this.last = steps[steps.length - 1];
+        this.primitive = last.getPrimitive();
+    }
+
+    /**
+     * Returns the value at the end of the path, or null if any part of the path is missing
+     */
+    @SuppressWarnings("unchecked")
+    public V get(T owner) {
+        Object parent = getParent(owner);
+        if (parent == null) {
+            return null;
+        }
+        try {
+            return (V) boxed.cast(last.next(parent));
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    /**
+     * Sets the value at the end of the path. Returns false if the path could not be followed because part of it is
+     * missing, such as a null object, an absent map key or a list index out of range
+     */
+    public boolean set(T owner, V value) {
+        Object parent = getParent(owner);
+        if (parent == null) {
+            return false;
+        }
+        try {
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public boolean getBoolean(T owner, boolean orElse) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return orElse;
+            }
+            if (primitive != null && primitive.getType() == boolean.class) {
+                return primitive.getBoolean(parent);
+            }
+            Object value = last.next(parent);
+            return value == null ? orElse : (Boolean) value;
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    public boolean setBoolean(T owner, boolean value) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return false;
+            }
+            if (primitive != null && primitive.getType() == boolean.class) {
+                primitive.setBoolean(parent, value);
+                return true;
+            }
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public byte getByte(T owner, byte orElse) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return orElse;
+            }
+            if (primitive != null && primitive.getType() == byte.class) {
+                return primitive.getByte(parent);
+            }
+            Object value = last.next(parent);
+            return value == null ? orElse : ((Number) value).byteValue();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    public boolean setByte(T owner, byte value) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return false;
+            }
+            if (primitive != null && primitive.getType() == byte.class) {
+                primitive.setByte(parent, value);
+                return true;
+            }
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public short getShort(T owner, short orElse) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return orElse;
+            }
+            if (primitive != null && primitive.getType() == short.class) {
+                return primitive.getShort(parent);
+            }
+            Object value = last.next(parent);
+            return value == null ? orElse : ((Number) value).shortValue();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    public boolean setShort(T owner, short value) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return false;
+            }
+            if (primitive != null && primitive.getType() == short.class) {
+                primitive.setShort(parent, value);
+                return true;
+            }
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public int getInt(T owner, int orElse) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return orElse;
+            }
+            if (primitive != null && primitive.getType() == int.class) {
+                return primitive.getInt(parent);
+            }
+            Object value = last.next(parent);
+            return value == null ? orElse : ((Number) value).intValue();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    public boolean setInt(T owner, int value) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return false;
+            }
+            if (primitive != null && primitive.getType() == int.class) {
+                primitive.setInt(parent, value);
+                return true;
+            }
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public long getLong(T owner, long orElse) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return orElse;
+            }
+            if (primitive != null && primitive.getType() == long.class) {
+                return primitive.getLong(parent);
+            }
+            Object value = last.next(parent);
+            return value == null ? orElse : ((Number) value).longValue();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    public boolean setLong(T owner, long value) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return false;
+            }
+            if (primitive != null && primitive.getType() == long.class) {
+                primitive.setLong(parent, value);
+                return true;
+            }
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public float getFloat(T owner, float orElse) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return orElse;
+            }
+            if (primitive != null && primitive.getType() == float.class) {
+                return primitive.getFloat(parent);
+            }
+            Object value = last.next(parent);
+            return value == null ? orElse : ((Number) value).floatValue();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    public boolean setFloat(T owner, float value) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return false;
+            }
+            if (primitive != null && primitive.getType() == float.class) {
+                primitive.setFloat(parent, value);
+                return true;
+            }
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public double getDouble(T owner, double orElse) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return orElse;
+            }
+            if (primitive != null && primitive.getType() == double.class) {
+                return primitive.getDouble(parent);
+            }
+            Object value = last.next(parent);
+            return value == null ? orElse : ((Number) value).doubleValue();
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to get " + name, e);
+        }
+    }
+
+    public boolean setDouble(T owner, double value) {
+        Object parent = getParent(owner);
+        try {
+            if (parent == null) {
+                return false;
+            }
+            if (primitive != null && primitive.getType() == double.class) {
+                primitive.setDouble(parent, value);
+                return true;
+            }
+            return last.set(parent, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set " + name, e);
+        }
+    }
+
+    public Class<V> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Follows every step but the last, returning the object that holds the value or null if the path is broken
+     */
+    private Object getParent(Object owner) {
+        try {
+            Object current = owner;
+            for (int i = 0, end = steps.length - 1; i < end && current != null; i++) {
+                current = steps[i].next(current);
+            }
+            return current;
+        } catch (IllegalAccessException | InstantiationException e) {
+            throw new IllegalStateException("Unable to follow " + name, e);
+        }
+    }
+
+    /**
+     * Resolves the path against the node tree, failing with an IllegalArgumentException if it names a field that
+     * does not exist, continues past a value, or leads to a value that is not of the given type
+     */
+    static <T, V> ConfigPath<T, V> compile(Node<T> root, Class<V> type, String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Path is empty");
+        }
+
+        String name = String.join(".", path);
+        Step[] steps = new Step[path.length + 1];
+        int count = 0;
+
+        Node node = root;
+        if (node.isMap() || node.isList()) {
+            // root maps & lists are held by the instance's own $self field
+            steps[count++] = new FieldStep(node);
+        }
+
+        for (String segment : path) {
+            if (node.isLazy()) {
+                LazyNode lazy = (LazyNode) node;
+                steps[count - 1] = new LazyStep(lazy);
+                node = lazy.getTemplate();
+                if (node.isMap() || node.isList()) {
+                    steps[count++] = new FieldStep(node);
+                }
+            }
+
+            if (node.isObject()) {
+                Node child = node.asObject().getChild(segment);
+                if (!child.isPresent()) {
+                    throw new IllegalArgumentException("No field '" + segment + "' in path " + name);
+                }
+                steps[count++] = child instanceof PrimitiveNode ? new PrimitiveStep((PrimitiveNode) child) : new FieldStep(child);
+                node = child;
+            } else if (node.isMap()) {
+                MapNode map = node.asMap();
+                if (!map.getKeyTemplate().isValue()) {
+                    throw new IllegalArgumentException("Map keys cannot be parsed in path " + name);
+                }
+                steps[count++] = new KeyStep(parseKey(map.getKeyTemplate().asValue(), segment, name));
+                node = map.getValueTemplate();
+            } else if (node.isList()) {
+                steps[count++] = new IndexStep(parseIndex(segment, name));
+                node = node.asList().getValueTemplate();
+            } else {
+                throw new IllegalArgumentException("Path " + name + " continues past a value at '" + segment + "'");
+            }
+        }
+
+        Class<?> target = getType(node);
+        if (target != null && !box(type).isAssignableFrom(box(target))) {
+            throw new IllegalArgumentException("Path " + name + " leads to " + target.getName() + " not " + type.getName());
+        }
+
+        Step[] resolved = new Step[count];
+        System.arraycopy(steps, 0, resolved, 0, count);
+        return new ConfigPath<>(name, type, resolved);
+    }
+
+    private static Object parseKey(ValueNode template, String segment, String name) {
+        try {
+            Object key = template.read(segment);
+            if (key == null) {
+                throw new IllegalArgumentException("Map keys cannot be parsed in path " + name);
+            }
+            return key;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid map key '" + segment + "' in path " + name, e);
+        }
+    }
+
+    private static int parseIndex(String segment, String name) {
+        try {
+            int index = Integer.parseInt(segment);
+            if (index >= 0) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid list index '" + segment + "' in path " + name);
+    }
+
+    private static Class<?> getType(Node node) {
+        if (node.isValue()) {
+            return node.asValue().getType();
+        }
+        if (node.isObject()) {
+            return node.asObject().getType();
+        }
+        if (node.isMap()) {
+            return Map.class;
+        }
+        if (node.isList()) {
+            return List.class;
+        }
+        if (node.isLazy()) {
+            return Lazy.class;
+        }
+        return null;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        }
+        if (type == long.class) {
+            return Long.class;
+        }
+        if (type == double.class) {
+            return Double.class;
+        }
+        if (type == float.class) {
+            return Float.class;
+        }
+        if (type == boolean.class) {
+            return Boolean.class;
+        }
+        if (type == short.class) {
+            return Short.class;
+        }
+        if (type == byte.class) {
+            return Byte.class;
+        }
+        if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
+
+    /**
+     * Moves from one object along the path to the next
+     */
+    private static abstract class Step {
+
+        abstract Object next(Object current) throws IllegalAccessException, InstantiationException;
+
+        abstract boolean set(Object current, Object value) throws IllegalAccessException;
+
+        Accessor getPrimitive() {
+            return null;
+        }
+    }
+
+    private static class FieldStep extends Step {
+
+        private final Node node;
+
+        private FieldStep(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        Object next(Object current) throws IllegalAccessException, InstantiationException {
+            return node.get(current);
+        }
+
+        @Override
+        boolean set(Object current, Object value) throws IllegalAccessException {
+            node.set(current, value);
+            return true;
+        }
+    }
+
+    private static class PrimitiveStep extends FieldStep {
+
+        private final Accessor field;
+
+        private PrimitiveStep(PrimitiveNode node) {
+            super(node);
+            this.field = node.field;
+        }
+
+        @Override
+        Accessor getPrimitive() {
+            return field;
+        }
+    }
+
+    /**
+     * Moves into the value of a Lazy section, parsing it if this is the first access
+     */
+    private static class LazyStep extends FieldStep {
+
+        private LazyStep(LazyNode node) {
+            super(node);
+        }
+
+        @Override
+        Object next(Object current) throws IllegalAccessException, InstantiationException {
+            Lazy<?> lazy = (Lazy<?>) super.next(current);
+            return lazy == null ? null : lazy.get();
+        }
+    }
+
+    private static class KeyStep extends Step {
+
+        private final Object key;
+
+        private KeyStep(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        Object next(Object current) {
+            return ((Map<?, ?>) current).get(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean set(Object current, Object value) {
+            ((Map<Object, Object>) current).put(key, value);
+            return true;
+        }
+    }
+
+    private static class IndexStep extends Step {
+
+        private final int index;
+
+        private IndexStep(int index) {
+            this.index = index;
+        }
+
+        @Override
+        Object next(Object current) {
+            List<?> list = (List<?>) current;
+            return index < list.size() ? list.get(index) : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean set(Object current, Object value) {
+            List<Object> list = (List<Object>) current;
+            if (index < list.size()) {
+                list.set(index, value);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates the elements of a root list or map as they are parsed, so only the current element is held in memory.
+ * The parser is closed once the last element has been read, or when the Stream is closed, and the read is reported
+ * to the listener at the same point or when it fails
+ *
+ * @author dags <dags@dags.me>
+ */
+abstract class Elements<E> implements Iterator<E> {
+
+    final Parser parser;
+    private final Node<?> node;
+    private final String operation;
+    private final char close;
+    private final MapperListener listener = Listeners.get();
+    private final long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
+    private Boolean hasNext = null;
+    private boolean done = false;
+
+    private Elements(Parser parser, Node<?> node, String operation, char open, char close) {
+        this.parser = parser;
+        this.node = node;
+        this.operation = operation;
+        this.close = close;
+        try {
+            parser.start(open);
+        } catch (IOException e) {
+            done(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    abstract E read() throws Exception;
+
+    @Override
+    public boolean hasNext() {
+        if (hasNext == null) {
+            try {
+                hasNext = parser.hasNext(close);
+                if (!hasNext) {
+                    done(null);
+                    parser.close();
+                }
+            } catch (IOException e) {
+                done(e);
+                throw new UncheckedIOException(e);
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        hasNext = null;
+        try {
+            return read();
+        } catch (IOException e) {
+            done(e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            done(e);
+            throw e;
+        } catch (Exception e) {
+            done(e);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Stream<E> stream() {
+        Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            done(null);
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reports the read the first time it ends, whether by reaching the end, failing or being closed early
+     */
+    private void done(Exception error) {
+        if (!done) {
+            done = true;
+            Listeners.onRead(listener, node, operation, start, parser, error);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> Elements<V> of(Parser parser, ListNode list, String operation) {
+        return new Elements<V>(parser, list, operation, Render.START_LIST, Render.END_LIST) {
+            @Override
+            V read() throws Exception {
+                return (V) parser.nextElement(list);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> Elements<Map.Entry<K, V>> of(Parser parser, MapNode map, String operation) {
+        return new Elements<Map.Entry<K, V>>(parser, map, operation, Render.START_OBJECT, Render.END_OBJECT) {
+            @Override
+            Map.Entry<K, V> read() throws Exception {
+                return (Map.Entry<K, V>) (Map.Entry) parser.nextEntry(map);
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package me.dags.config;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Creates new instances for a node, either reflectively or through code supplied by a generated Mapper
+ *
+ * @author dags <dags@dags.me>
+ */
+interface Factory<T> {
+
+    T create() throws IllegalAccessException, InstantiationException, InvocationTargetException;
+
+    static <T> Factory<T> of(Constructor<T> constructor) {
+        return constructor == null ? null : constructor::newInstance;
+    }
+
+    /**
+     * Creates instances through the template node, or returns null where the template is an object that cannot be
+     * instantiated, in the same way that the reflective nodes have no factory for types without a public constructor
+     */
+    static Factory<?> of(Node<?> template) {
+        if (template.isObject() && template.asObject().getFactory() == null) {
+            return null;
+        }
+        return template::newInstance;
+    }
+}
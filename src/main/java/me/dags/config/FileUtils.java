@@ -0,0 +1,243 @@
+package me.dags.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * File access for Mappers. Files are written by way of a temporary sibling that is renamed over the target, so
+ * that readers only ever see the old or the new content in full
+ *
+ * @author dags <dags@dags.me>
+ */
+class FileUtils {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Consumer<ByteBuffer> UNMAPPER = getUnmapper();
+
+    /**
+     * Opens a UTF-8 reader on the file. Large files are memory-mapped and decoded straight from the mapping rather
+     * than streamed through the heap
+     */
+    static Reader open(Path path) throws IOException {
+        if (Files.size(path) >= MappedReader.THRESHOLD) {
+            return MappedReader.open(path);
+        }
+        return new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes to a temporary file that then replaces the target, so readers never see a partially written file. The
+     * temp file is forced to disk before the rename so that a crash cannot leave the target renamed but empty
+     */
+    static void write(Path path, Source source) throws Exception {
+        Path target = target(path);
+        Path temp = createTemp(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+                source.writeTo(writer);
+                writer.flush();
+                channel.force(true);
+            }
+            replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the content to the file unless it already holds exactly that content. Returns true if the file was
+     * written
+     */
+    static boolean update(Path path, Content content) throws IOException {
+        if (matches(path, content.bytes(), content.size())) {
+            return false;
+        }
+
+        Path target = target(path);
+        Path temp = createTemp(target);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                content.writeTo(Channels.newOutputStream(channel));
+                channel.force(true);
+            }
+            replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    /**
+     * The file that a write to the path should replace. A path that exists is resolved through any symbolic links, so
+     * the linked file is replaced rather than the link itself
+     */
+    static Path target(Path path) throws IOException {
+        if (Files.exists(path)) {
+            return path.toRealPath();
+        }
+        return path.toAbsolutePath();
+    }
+
+    /**
+     * Creates an empty file alongside the target (so that it can be renamed over it) that carries the target's
+     * permissions where the file system supports them. A new target gets the same permissions as any other new
+     * file, as the temp file is created with the process's defaults rather than the owner-only ones of
+     * Files.createTempFile
+     */
+    static Path createTemp(Path path) throws IOException {
+        Path target = path.toAbsolutePath();
+        Path parent = target.getParent();
+        Files.createDirectories(parent);
+
+        Path temp = null;
+        while (temp == null) {
+            Path name = parent.resolve("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                temp = Files.createFile(name);
+            } catch (FileAlreadyExistsException e) {
+                // try another name
+            }
+        }
+
+        if (Files.exists(target)) {
+            try {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+            } catch (UnsupportedOperationException e) {
+                // not a posix file system
+            }
+        }
+        return temp;
+    }
+
+    /**
+     * Renames the temp file over the target, atomically where the file system supports it, then flushes the
+     * directory so that the rename itself is on disk
+     */
+    static void replace(Path temp, Path path) throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        sync(path.toAbsolutePath().getParent());
+    }
+
+    private static void sync(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directories cannot be opened on some platforms (e.g. Windows), which leave the rename to the OS
+        }
+    }
+
+    private static boolean matches(Path path, byte[] content, int length) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) != length) {
+            return false;
+        }
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int offset = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (offset + read > length) {
+                    return false;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != content[offset + i]) {
+                        return false;
+                    }
+                }
+                offset += read;
+            }
+            return offset == length;
+        }
+    }
+
+    /**
+     * Releases a mapping straight away rather than when the buffer is garbage collected, so that the file can be
+     * replaced or deleted afterwards (which Windows refuses while a mapping is open). The buffer must not be used
+     * again. Where the JVM offers no way to do so the mapping is left for the garbage collector
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        if (buffer != null) {
+            UNMAPPER.accept(buffer);
+        }
+    }
+
+    private static Consumer<ByteBuffer> getUnmapper() {
+        try {
+            // java 9+
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            return buffer -> invoke(invokeCleaner, unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // fall through to the java 8 cleaner
+        }
+
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = cleaner.getReturnType().getMethod("clean");
+            return buffer -> {
+                Object target = invoke(cleaner, buffer);
+                if (target != null) {
+                    invoke(clean, target);
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return buffer -> {};
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the mapping is released by the garbage collector instead
+            return null;
+        }
+    }
+
+    interface Source {
+
+        void writeTo(Writer writer) throws Exception;
+    }
+
+    /**
+     * Rendered file content, exposing its backing array so it can be compared without a copy
+     */
+    static class Content extends ByteArrayOutputStream {
+
+        Content() {
+            super(BUFFER_SIZE);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
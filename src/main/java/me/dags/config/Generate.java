@@ -0,0 +1,18 @@
+package me.dags.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a config class for the cfg-processor annotation processor, which generates a reflection-free Mapper for it
+ * at compile time. Mapper.of(..) uses the generated Mapper when it is present on the classpath
+ *
+ * @author dags <dags@dags.me>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Generate {
+
+}
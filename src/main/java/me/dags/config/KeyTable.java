@@ -0,0 +1,95 @@
+package me.dags.config;
+
+import java.util.Map;
+
+/**
+ * A perfect hash table over the fixed set of field names of an ObjectNode. The table size and hash multiplier are
+ * chosen when the node is built so that every name occupies its own slot, which lets the parser resolve a key
+ * straight from its char buffer with one hash and at most one comparison, and without creating a String
+ *
+ * @author dags <dags@dags.me>
+ */
+final class KeyTable {
+
+    private static final int MAX_ATTEMPTS = 64;
+
+    private final char[][] names;
+    private final Node[] nodes;
+    private final int multiplier;
+    private final int shift;
+
+    private KeyTable(char[][] names, Node[] nodes, int multiplier, int shift) {
+        this.names = names;
+        this.nodes = nodes;
+        this.multiplier = multiplier;
+        this.shift = shift;
+    }
+
+    /**
+     * Returns the node for the given name, or ValueNode.EMPTY if it is not a field of the owning object
+     */
+    Node get(CharSequence name) {
+        int length = name.length();
+        int slot = index(name, length, multiplier, shift);
+        char[] candidate = names[slot];
+        if (candidate == null || candidate.length != length) {
+            return ValueNode.EMPTY;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (candidate[i] != name.charAt(i)) {
+                return ValueNode.EMPTY;
+            }
+        }
+
+        return nodes[slot];
+    }
+
+    static KeyTable of(Map<String, Node> fields) {
+        int bits = 1;
+        while ((1 << bits) < fields.size() * 2) {
+            bits++;
+        }
+
+        while (true) {
+            int size = 1 << bits;
+            int shift = 32 - bits;
+            for (int attempt = 0, multiplier = 0x9E3779B9; attempt < MAX_ATTEMPTS; attempt++, multiplier += 0x6A09E668) {
+                KeyTable table = tryCreate(fields, size, multiplier | 1, shift);
+                if (table != null) {
+                    return table;
+                }
+            }
+            if (++bits > 24) {
+                throw new IllegalStateException("Unable to create a key table for " + fields.keySet());
+            }
+        }
+    }
+
+    private static KeyTable tryCreate(Map<String, Node> fields, int size, int multiplier, int shift) {
+        char[][] names = new char[size][];
+        Node[] nodes = new Node[size];
+        for (Map.Entry<String, Node> entry : fields.entrySet()) {
+            String name = entry.getKey();
+            int slot = index(name, name.length(), multiplier, shift);
+            if (names[slot] != null) {
+                return null;
+            }
+            names[slot] = name.toCharArray();
+            nodes[slot] = entry.getValue();
+        }
+        return new KeyTable(names, nodes, multiplier, shift);
+    }
+
+    /**
+     * Polynomial hash using the (odd) multiplier as its base, seeded so that leading nul chars still contribute.
+     * The top bits of the final product select the slot
+     */
+    private static int index(CharSequence name, int length, int multiplier, int shift) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash = hash * multiplier + name.charAt(i);
+        }
+        return (hash * 0x9E3779B9) >>> shift;
+    }
+}
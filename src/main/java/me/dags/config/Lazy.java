@@ -0,0 +1,81 @@
+package me.dags.config;
+
+import java.io.StringReader;
+
+/**
+ * Holds a section of a config that is only parsed when it is first accessed. When a Mapper reads a field of type
+ * Lazy&lt;T&gt; it skips over the section, keeping just its text, so sections that are never used cost no more than
+ * the scan past them. Unloaded sections are written back out as their original text
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class Lazy<T> {
+
+    private final Node<T> template;
+    private final String source;
+    // a section may parse to null, so whether it has been parsed is tracked apart from the value. The value is
+    // published by the write to loaded that follows it
+    private T value;
+    private volatile boolean loaded;
+
+    private Lazy(Node<T> template, String source, T value, boolean loaded) {
+        this.template = template;
+        this.source = source;
+        this.value = value;
+        this.loaded = loaded;
+    }
+
+    /**
+     * Returns the value, parsing it from the recorded text on first access
+     */
+    public T get() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    try {
+                        value = template.read(new StringReader(source));
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Unable to read lazy section", e);
+                    }
+                    loaded = true;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns true if the value has been parsed (or was supplied directly)
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns true if both hold the same unparsed text
+     */
+    boolean isSameSource(Object other) {
+        if (!(other instanceof Lazy) || isLoaded() || ((Lazy) other).isLoaded()) {
+            return false;
+        }
+        return source.equals(((Lazy) other).source);
+    }
+
+    /**
+     * Wraps an already available value, e.g. as the default for a field
+     */
+    public static <T> Lazy<T> of(T value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        return new Lazy<>(null, null, value, true);
+    }
+
+    static <T> Lazy<T> of(Node<T> template, String source) {
+        return new Lazy<>(template, source, null, false);
+    }
+}
@@ -0,0 +1,85 @@
+package me.dags.config;
+
+import me.dags.config.style.Style;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+
+/**
+ * Maps a Lazy field. The parser records the text of the field's section instead of parsing it, and the template
+ * node for the section's type is only used once the Lazy is accessed
+ *
+ * @author dags <dags@dags.me>
+ */
+class LazyNode implements Node {
+
+    private final Accessor field;
+    private final Node template;
+
+    LazyNode(Field field) {
+        Type[] args = ClassUtils.getParamTypes(field);
+        this.field = Accessor.of(field);
+        this.template = ClassMapper.getNode((Class<?>) args[0]);
+    }
+
+    LazyNode(Accessor field, Node template) {
+        this.field = field;
+        this.template = template;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(Appendable appendable, Object owner, Style style, int level, boolean key) throws IOException, IllegalAccessException {
+        Lazy<?> lazy = (Lazy<?>) get(owner);
+        if (lazy == null) {
+            if (template.isList()) {
+                Render.startList(appendable);
+                Render.endList(appendable);
+            } else {
+                Render.startObject(appendable);
+                Render.endObject(appendable);
+            }
+        } else if (lazy.isLoaded() && lazy.get() != null) {
+            template.write(appendable, lazy.get(), style, level, false);
+        } else {
+            appendable.append(lazy.getSource());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object newInstance() throws IllegalAccessException, InstantiationException, InvocationTargetException {
+        return Lazy.of(template.newInstance());
+    }
+
+    @Override
+    public Object get(Object owner) throws IllegalAccessException {
+        return field.get(owner);
+    }
+
+    @Override
+    public void set(Object owner, Object value) throws IllegalAccessException {
+        field.set(owner, value);
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty(Object owner) throws IllegalAccessException {
+        return get(owner) == null;
+    }
+
+    Node getTemplate() {
+        return template;
+    }
+
+    @SuppressWarnings("unchecked")
+    Lazy<?> read(String source) {
+        return Lazy.of(template, source);
+    }
+}
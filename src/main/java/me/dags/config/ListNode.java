@@ -18,21 +18,21 @@ class ListNode implements Node {
 
     static final ListNode EMPTY = new ListNode(null);
 
-    private final Field field;
+    private final Accessor field;
     private final Node valueTemplate;
-    private final Constructor<?> constructor;
-    private final Constructor<?> valueConstructor;
+    private final Factory<?> factory;
+    private final Factory<?> valueFactory;
 
     ListNode(Field field) {
         if (field == null) {
             this.field = null;
-            this.constructor = null;
+            this.factory = null;
             this.valueTemplate = null;
-            this.valueConstructor = null;
+            this.valueFactory = null;
         } else {
             Type[] args = ClassUtils.getParamTypes(field);
             Class<?> childType = (Class<?>) args[0];
-            this.field = field;
+            this.field = Accessor.of(field);
             this.valueTemplate = ClassMapper.getNode(childType);
             Constructor<?> constructor;
             try {
@@ -40,13 +40,28 @@ class ListNode implements Node {
             } catch (NoSuchMethodException e) {
                 constructor = null;
             }
-            this.constructor = ClassUtils.getConstructor(field, ArrayList.class);
-            this.valueConstructor = constructor;
+            this.factory = Factory.of(ClassUtils.getConstructor(field, ArrayList.class));
+            this.valueFactory = Factory.of(constructor);
         }
     }
 
+    ListNode(Accessor field, Node valueTemplate, Factory<?> factory) {
+        this.field = field;
+        this.factory = factory;
+        this.valueTemplate = valueTemplate;
+        this.valueFactory = Factory.of(valueTemplate);
+    }
+
     @Override
     public void write(Appendable appendable, Object owner, Style style, int level, boolean key) throws IOException, IllegalAccessException {
+        List<?> list = (List<?>) get(owner);
+        write(appendable, list.iterator(), style, level);
+    }
+
+    /**
+     * Renders the elements as they are drawn from the iterator, so the list need not exist as a whole
+     */
+    void write(Appendable appendable, Iterator<?> iterator, Style style, int level) throws IOException, IllegalAccessException {
         boolean root = level == 0;
         boolean empty = true;
 
@@ -55,8 +70,6 @@ class ListNode implements Node {
         }
 
         int childLevel = level + 1;
-        List<?> list = (List<?>) get(owner);
-        Iterator<?> iterator = list.iterator();
 
         while (iterator.hasNext()) {
             if (empty) {
@@ -88,7 +101,7 @@ class ListNode implements Node {
 
     @Override
     public Object newInstance() throws IllegalAccessException, InvocationTargetException, InstantiationException {
-        return constructor.newInstance();
+        return factory.create();
     }
 
     @Override
@@ -122,7 +135,7 @@ class ListNode implements Node {
     }
 
     Object newValueInstance() throws IllegalAccessException, InstantiationException, InvocationTargetException {
-        return valueConstructor == null ? null : valueConstructor.newInstance();
+        return valueFactory == null ? null : valueFactory.create();
     }
 
     Node getValueTemplate() {
@@ -0,0 +1,90 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Holds the MapperListener that is currently installed, which starts out as the first one found by ServiceLoader
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Listeners {
+
+    private static volatile MapperListener listener = load();
+
+    private Listeners() {
+
+    }
+
+    static MapperListener get() {
+        return listener;
+    }
+
+    static void set(MapperListener listener) {
+        Listeners.listener = listener == null ? MapperListener.NONE : listener;
+    }
+
+    static boolean isActive(MapperListener listener) {
+        return listener != MapperListener.NONE;
+    }
+
+    /**
+     * Reports a read that has finished, successfully or not. The parser is null where the read failed before one
+     * was created, in which case no chars or nodes are counted
+     */
+    static void onRead(MapperListener listener, Node<?> node, String operation, long start, Parser parser, Exception error) {
+        if (parser == null) {
+            onRead(listener, node, operation, start, 0L, 0L, 0L, error);
+        } else {
+            onRead(listener, node, operation, start, parser.chars(), parser.nodes(), parser.unknownKeys(), error);
+        }
+    }
+
+    static void onRead(MapperListener listener, Node<?> node, String operation, long start, long chars, long nodes, long unknownKeys, Exception error) {
+        if (isActive(listener)) {
+            listener.onRead(getType(node), operation, System.nanoTime() - start, chars, nodes, unknownKeys, error);
+        }
+    }
+
+    /**
+     * Opens the file to be read, reporting the read as failed if it cannot be opened
+     */
+    static Reader open(Node<?> node, String operation, Path path) throws IOException {
+        MapperListener listener = get();
+        long start = isActive(listener) ? System.nanoTime() : 0L;
+        try {
+            return FileUtils.open(path);
+        } catch (IOException e) {
+            onRead(listener, node, operation, start, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * The mapped class of a node, where it has one
+     */
+    static Class<?> getType(Node<?> node) {
+        if (node.isObject()) {
+            return node.asObject().getType();
+        }
+        if (node.isValue()) {
+            return node.asValue().getType();
+        }
+        return null;
+    }
+
+    private static MapperListener load() {
+        try {
+            Iterator<MapperListener> listeners = ServiceLoader.load(MapperListener.class).iterator();
+            if (listeners.hasNext()) {
+                return listeners.next();
+            }
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+        return MapperListener.NONE;
+    }
+}
@@ -0,0 +1,125 @@
+package me.dags.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A config file that is reloaded whenever it changes on disk. Changes are picked up by a WatchService shared
+ * between all LiveConfigs on the same file system, bursts of events are debounced, and the file is re-parsed on a
+ * background thread. Each successful reload publishes a new instance; an instance is never modified once it has
+ * been published, so readers get a consistent snapshot from get(). If a reload fails, or the file or its directory
+ * is deleted, the previous snapshot is kept and the problem is passed to the MapperListener's onError
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class LiveConfig<T> implements Supplier<T>, Closeable {
+
+    private static final long DEFAULT_DEBOUNCE = 100;
+
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+    private final Mapper<T> mapper;
+    private final Path path;
+    private final long debounce;
+
+    private volatile T snapshot;
+    private volatile boolean closed = false;
+
+    private LiveConfig(Mapper<T> mapper, Path path, T initial, long debounce) {
+        this.mapper = mapper;
+        this.path = path;
+        this.snapshot = initial;
+        this.debounce = debounce;
+    }
+
+    /**
+     * Returns the most recently loaded snapshot
+     */
+    @Override
+    public T get() {
+        return snapshot;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Adds a listener that is called, on the reload thread, with each new snapshot
+     */
+    public LiveConfig<T> onChange(Consumer<T> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Stops watching the file. The current snapshot remains available, and reloads that were already pending are
+     * discarded
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Watcher.unregister(this);
+    }
+
+    long getDebounce() {
+        return debounce;
+    }
+
+    /**
+     * Called on the reload thread once a burst of changes to the file has settled
+     */
+    void reload() {
+        try {
+            if (closed) {
+                return;
+            }
+
+            if (!Files.exists(path)) {
+                throw new NoSuchFileException(path.toString());
+            }
+
+            T value = mapper.read(path);
+            if (closed) {
+                return;
+            }
+            snapshot = value;
+
+            for (Consumer<T> listener : listeners) {
+                listener.accept(value);
+            }
+        } catch (Exception e) {
+            onError("reload", e);
+        }
+    }
+
+    void onError(String operation, Exception error) {
+        Listeners.get().onError(Listeners.getType((Node<T>) mapper), operation, error);
+    }
+
+    /**
+     * Loads the file, writing the fallback to it if it does not exist yet, and watches it for changes
+     */
+    public static <T> LiveConfig<T> watch(Mapper<T> mapper, Path path, Supplier<T> fallback) throws IOException {
+        return watch(mapper, path, fallback, DEFAULT_DEBOUNCE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads the file, writing the fallback to it if it does not exist yet, and watches it for changes. Changes are
+     * applied once no further events have arrived for the debounce period
+     */
+    public static <T> LiveConfig<T> watch(Mapper<T> mapper, Path path, Supplier<T> fallback, long debounce, TimeUnit unit) throws IOException {
+        Path file = path.toAbsolutePath().normalize();
+        T initial = mapper.must(file, fallback);
+        LiveConfig<T> config = new LiveConfig<>(mapper, file, initial, unit.toNanos(debounce));
+        Watcher.register(config);
+        return config;
+    }
+}
@@ -19,20 +19,20 @@ class MapNode implements Node {
 
     static final MapNode EMPTY = new MapNode();
 
-    private final Field field;
+    private final Accessor field;
     private final Node keyTemplate;
     private final Node valueTemplate;
-    private final Constructor<?> constructor;
-    private final Constructor<?> keyConstructor;
-    private final Constructor<?> valueConstructor;
+    private final Factory<?> factory;
+    private final Factory<?> keyFactory;
+    private final Factory<?> valueFactory;
 
     private MapNode() {
         this.field = null;
         this.keyTemplate = null;
         this.valueTemplate = null;
-        this.constructor = null;
-        this.keyConstructor = null;
-        this.valueConstructor = null;
+        this.factory = null;
+        this.keyFactory = null;
+        this.valueFactory = null;
     }
 
     MapNode(Field field) {
@@ -40,7 +40,7 @@ class MapNode implements Node {
         Class<?> keyType = (Class<?>) args[0];
         Class<?> valType = (Class<?>) args[1];
 
-        this.field = field;
+        this.field = Accessor.of(field);
         this.keyTemplate = ClassMapper.getNode(keyType);
         this.valueTemplate = ClassMapper.getNode(valType);
 
@@ -60,13 +60,30 @@ class MapNode implements Node {
             valCon = null;
         }
 
-        this.constructor = ClassUtils.getConstructor(field, LinkedHashMap.class);
-        this.keyConstructor = keyCon;
-        this.valueConstructor = valCon;
+        this.factory = Factory.of(ClassUtils.getConstructor(field, LinkedHashMap.class));
+        this.keyFactory = Factory.of(keyCon);
+        this.valueFactory = Factory.of(valCon);
+    }
+
+    MapNode(Accessor field, Node keyTemplate, Node valueTemplate, Factory<?> factory) {
+        this.field = field;
+        this.keyTemplate = keyTemplate;
+        this.valueTemplate = valueTemplate;
+        this.factory = factory;
+        this.keyFactory = Factory.of(keyTemplate);
+        this.valueFactory = Factory.of(valueTemplate);
     }
 
     @Override
     public void write(Appendable appendable, Object owner, Style style, int level, boolean key) throws IOException, IllegalAccessException {
+        Map<?, ?> map = (Map) get(owner);
+        write(appendable, map.entrySet().iterator(), style, level);
+    }
+
+    /**
+     * Renders the entries as they are drawn from the iterator, so the map need not exist as a whole
+     */
+    void write(Appendable appendable, Iterator<? extends Map.Entry<?, ?>> iterator, Style style, int level) throws IOException, IllegalAccessException {
         boolean root = level == 0;
         boolean empty = true;
 
@@ -75,8 +92,6 @@ class MapNode implements Node {
         }
 
         int childLevel = level + 1;
-        Map<?, ?> map = (Map) get(owner);
-        Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
 
         if (!root && iterator.hasNext()) {
             Render.lineEnd(appendable);
@@ -108,7 +123,7 @@ class MapNode implements Node {
 
     @Override
     public Object newInstance() throws IllegalAccessException, InstantiationException, InvocationTargetException {
-        return constructor.newInstance();
+        return factory.create();
     }
 
     @Override
@@ -142,11 +157,11 @@ class MapNode implements Node {
     }
 
     Object newKeyInstance() throws IllegalAccessException, InstantiationException, InvocationTargetException {
-        return keyConstructor == null ? null : keyConstructor.newInstance();
+        return keyFactory == null ? null : keyFactory.create();
     }
 
     Object newValueInstance() throws IllegalAccessException, InstantiationException, InvocationTargetException {
-        return valueConstructor == null ? null : valueConstructor.newInstance();
+        return valueFactory == null ? null : valueFactory.create();
     }
 
     Node getKeyTemplate() {
@@ -165,19 +180,7 @@ class MapNode implements Node {
     static Object getSafeKey(Object value) {
         if (value instanceof String) {
             String text = (String) value;
-            char box = (char) -1;
-
-            for (int i = 0; i < text.length(); i++) {
-                char c = text.charAt(i);
-                if (c == Render.NEWLINE) {
-                    box = Render.ESCAPE;
-                    break;
-                }
-                if (c == Render.ASSIGN) {
-                    box = Render.QUOTE;
-                }
-            }
-
+            char box = getBox(text, true);
             if (box != (char) -1) {
                 return box + text + box;
             }
@@ -188,16 +191,31 @@ class MapNode implements Node {
     static Object getSafeValue(Object value) {
         if (value instanceof String) {
             String text = (String) value;
-            for (int i = 0; i < text.length(); i++) {
-                char c = text.charAt(i);
-                if (c == Render.NEWLINE) {
-                    return Render.ESCAPE + text + Render.ESCAPE;
-                }
+            char box = getBox(text, false);
+            if (box != (char) -1) {
+                return box + text + box;
             }
         }
         return value;
     }
 
+    /**
+     * Returns the char that the text must be boxed in to be read back, or (char) -1 if it can be written as is
+     */
+    static char getBox(String text, boolean key) {
+        char box = (char) -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == Render.NEWLINE) {
+                return Render.ESCAPE;
+            }
+            if (key && c == Render.ASSIGN) {
+                box = Render.QUOTE;
+            }
+        }
+        return box;
+    }
+
     private static Class<?> constructor(Field field) {
         return field == null ? LinkedList.class : field.getType();
     }
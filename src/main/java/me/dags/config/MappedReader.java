@@ -0,0 +1,249 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 file through a memory mapping, decoding straight from the mapped bytes into the caller's buffer.
+ * Runs of ASCII are copied with a single comparison per byte and multi-byte sequences are decoded inline where they
+ * occur. Malformed input is replaced with U+FFFD in the same way as the JDK's UTF-8 decoder (and so
+ * InputStreamReader): each maximal run of bytes that starts a valid sequence but does not complete it becomes a
+ * single replacement, and any other invalid byte becomes one of its own.
+ *
+ * The file is mapped a window at a time. Each window is released as soon as the reader moves past it, and the last
+ * one when the reader is closed, so the file can be replaced once it has been read
+ *
+ * @author dags <dags@dags.me>
+ */
+class MappedReader extends Reader {
+
+    /**
+     * Files smaller than this are cheaper to read through a regular stream than to map
+     */
+    static final long THRESHOLD = 1024 * 1024;
+
+    private static final long WINDOW = 1 << 26;
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final FileChannel channel;
+    private final long size;
+
+    private MappedByteBuffer buffer;
+    private long offset = 0;
+    private char pending = 0;
+
+    private MappedReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        map(0);
+    }
+
+    @Override
+    public int read(char[] chars, int off, int len) throws IOException {
+        if (buffer == null) {
+            throw new IOException("Stream closed");
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        int i = off;
+        int end = off + len;
+        if (pending != 0) {
+            // low surrogate left over from the previous read
+            chars[i++] = pending;
+            pending = 0;
+        }
+
+        if (buffer.remaining() < 4 && offset + buffer.limit() < size) {
+            map(offset + buffer.position());
+        }
+
+        MappedByteBuffer buffer = this.buffer;
+        int pos = buffer.position();
+        int limit = buffer.limit();
+        if (pos == limit && i == off) {
+            return -1;
+        }
+
+        boolean last = offset + limit >= size;
+        while (i < end && pos < limit) {
+            int b = buffer.get(pos);
+
+            if (b >= 0) {
+                chars[i++] = (char) b;
+                pos++;
+                continue;
+            }
+
+            if (!last && pos + 4 > limit) {
+                // the sequence may straddle the end of the window, remap on the next read
+                break;
+            }
+
+            int length = getLength(b);
+            if (length == 0 || pos + length > limit) {
+                // a byte that cannot start a sequence, or a sequence cut short by the end of the file
+                chars[i++] = REPLACEMENT;
+                pos += length == 0 ? 1 : getTruncated(buffer, pos, limit - pos, length);
+                continue;
+            }
+
+            int b2 = buffer.get(pos + 1);
+            if (length == 2) {
+                if (!isContinuation(b2)) {
+                    chars[i++] = REPLACEMENT;
+                    pos++;
+                    continue;
+                }
+                chars[i++] = (char) (((b & 0x1F) << 6) | (b2 & 0x3F));
+                pos += 2;
+                continue;
+            }
+
+            int b3 = buffer.get(pos + 2);
+            if (length == 3) {
+                if (!isSecond3(b, b2)) {
+                    chars[i++] = REPLACEMENT;
+                    pos++;
+                    continue;
+                }
+                if (!isContinuation(b3)) {
+                    chars[i++] = REPLACEMENT;
+                    pos += 2;
+                    continue;
+                }
+                char c = (char) (((b & 0x0F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F));
+                // an encoded surrogate is replaced as a whole
+                chars[i++] = Character.isSurrogate(c) ? REPLACEMENT : c;
+                pos += 3;
+                continue;
+            }
+
+            int b4 = buffer.get(pos + 3);
+            if (!isSecond4(b, b2)) {
+                chars[i++] = REPLACEMENT;
+                pos++;
+                continue;
+            }
+            if (!isContinuation(b3) || !isContinuation(b4)) {
+                chars[i++] = REPLACEMENT;
+                pos += isContinuation(b3) ? 3 : 2;
+                continue;
+            }
+
+            int c = ((b & 0x07) << 18) | ((b2 & 0x3F) << 12) | ((b3 & 0x3F) << 6) | (b4 & 0x3F);
+            pos += 4;
+            chars[i++] = Character.highSurrogate(c);
+            if (i < end) {
+                chars[i++] = Character.lowSurrogate(c);
+            } else {
+                pending = Character.lowSurrogate(c);
+            }
+        }
+
+        buffer.position(pos);
+        return i - off;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            FileUtils.unmap(buffer);
+            buffer = null;
+        }
+    }
+
+    private void map(long position) throws IOException {
+        MappedByteBuffer previous = buffer;
+        offset = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position));
+        FileUtils.unmap(previous);
+    }
+
+    /**
+     * The length of the sequence that the lead byte starts, or 0 if it cannot start one. As in the JDK's decoder, F5
+     * to F7 are taken to start four byte sequences that are then rejected by their second byte
+     */
+    private static int getLength(int lead) {
+        int b = lead & 0xFF;
+        if (b >= 0xC2 && b <= 0xDF) {
+            return 2;
+        }
+        if (b >= 0xE0 && b <= 0xEF) {
+            return 3;
+        }
+        if (b >= 0xF0 && b <= 0xF7) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * The number of bytes replaced for a sequence that the end of the file cuts short: the bytes before the first
+     * one that rules the sequence out, or all that remain if none of them do
+     */
+    private static int getTruncated(MappedByteBuffer buffer, int pos, int remaining, int length) {
+        int b = buffer.get(pos);
+        if (remaining > 1) {
+            int b2 = buffer.get(pos + 1);
+            if (length == 3 ? !isSecond3(b, b2) : length == 4 && !isSecond4(b, b2)) {
+                return 1;
+            }
+        }
+        if (remaining > 2 && length == 4 && !isContinuation(buffer.get(pos + 2))) {
+            return 2;
+        }
+        return remaining;
+    }
+
+    /**
+     * Rules out overlong encodings, which are the only ones starting E0 80 to E0 9F. Encoded surrogates are only
+     * rejected once the whole sequence has been read
+     */
+    private static boolean isSecond3(int lead, int b) {
+        if ((lead & 0xFF) == 0xE0) {
+            return (b & 0xE0) == 0xA0;
+        }
+        return isContinuation(b);
+    }
+
+    /**
+     * Rules out overlong encodings and code points beyond U+10FFFF
+     */
+    private static boolean isSecond4(int lead, int b) {
+        switch (lead & 0xFF) {
+            case 0xF0:
+                return (b & 0xFF) >= 0x90 && (b & 0xFF) <= 0xBF;
+            case 0xF4:
+                return (b & 0xF0) == 0x80;
+            case 0xF1:
+            case 0xF2:
+            case 0xF3:
+                return isContinuation(b);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isContinuation(int b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    static MappedReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
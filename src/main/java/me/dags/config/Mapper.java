@@ -6,23 +6,59 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * @author dags <dags@dags.me>
  */
 public interface Mapper<T> {
 
+    /**
+     * Compiles the path into an accessor that can be kept and reused, so that reading or writing the value it leads
+     * to does not look up the path's field names each time. Segments name object fields, map keys or list indices.
+     * Throws an IllegalArgumentException if the path does not exist in the mapped type or leads to a value of a
+     * different type
+     */
+    default <V> ConfigPath<T, V> path(Class<V> type, String... path) {
+        return ConfigPath.compile((Node<T>) this, type, path);
+    }
+
+    /**
+     * Sets the value of a field by name. Code that sets the same path repeatedly should use a compiled path(..)
+     */
     default void setValue(T owner, Object value, String... path) {
         try {
             Node node = (Node<T>) this;
             Object parent = owner;
             for (int i = 0, end = path.length; i < end; i++) {
-                if (node.isObject()) {
-                    if (i > 0) {
-                        parent = node.get(parent);
+                if (node.isLazy()) {
+                    // load the section and continue through its own node
+                    Lazy<?> lazy = (Lazy<?>) node.get(parent);
+                    if (lazy == null) {
+                        return;
                     }
+                    parent = lazy.get();
+                    node = ((LazyNode) node).getTemplate();
+                } else if (i > 0 && node.isObject()) {
+                    parent = node.get(parent);
+                }
+
+                if (node.isObject()) {
                     node = node.asObject().getChild(path[i]);
                 } else {
                     return;
@@ -32,19 +68,32 @@ public interface Mapper<T> {
                 node.set(parent, value);
             }
         } catch (InstantiationException | IllegalAccessException e) {
-            e.printStackTrace();
+            Node<T> internal = (Node<T>) this;
+            Listeners.get().onError(Listeners.getType(internal), "setValue", e);
         }
     }
 
+    /**
+     * Gets the value of a field by name. Code that reads the same path repeatedly should use a compiled path(..)
+     */
     default Optional<?> getValue(T owner, String... path) {
         try {
             Node node = (Node<T>) this;
             Object parent = owner;
             for (int i = 0, end = path.length; i < end; i++) {
-                if (node.isObject()) {
-                    if (i > 0) {
-                        parent = node.get(parent);
+                if (node.isLazy()) {
+                    // load the section and continue through its own node
+                    Lazy<?> lazy = (Lazy<?>) node.get(parent);
+                    if (lazy == null) {
+                        return Optional.empty();
                     }
+                    parent = lazy.get();
+                    node = ((LazyNode) node).getTemplate();
+                } else if (i > 0 && node.isObject()) {
+                    parent = node.get(parent);
+                }
+
+                if (node.isObject()) {
                     node = node.asObject().getChild(path[i]);
                 } else {
                     return Optional.empty();
@@ -55,7 +104,8 @@ public interface Mapper<T> {
                 return Optional.ofNullable(node.get(parent));
             }
         } catch (InstantiationException | IllegalAccessException e) {
-            e.printStackTrace();
+            Node<T> internal = (Node<T>) this;
+            Listeners.get().onError(Listeners.getType(internal), "getValue", e);
         }
 
         return Optional.empty();
@@ -63,16 +113,20 @@ public interface Mapper<T> {
 
     default T read(Reader reader) throws Exception {
         Node<T> internal = (Node<T>) this;
+        MapperListener listener = Listeners.get();
+        long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
 
-        if (internal.isValue()) {
-            try (Parser parser = new Parser(reader)) {
-                return parser.unMarshal(null, internal);
-            }
-        }
-
-        try (Parser parser = new Parser(reader)) {
-            T t = internal.newInstance();
+        Parser parser = new Parser(reader);
+        Exception error = null;
+        try {
+            T t = internal.isValue() ? null : internal.newInstance();
             return parser.unMarshal(t, internal);
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            Listeners.onRead(listener, internal, "read", start, parser, error);
+            parser.close();
         }
     }
 
@@ -83,82 +137,422 @@ public interface Mapper<T> {
     }
 
     default T read(File file) throws Exception {
-        try (FileInputStream inputStream = new FileInputStream(file)) {
-            return read(inputStream);
-        }
+        return read(file.toPath());
     }
 
     default T read(Path path) throws Exception {
-        try (InputStream inputStream = Files.newInputStream(path)) {
-            return read(inputStream);
+        T value;
+        try (Reader reader = Listeners.open((Node<T>) this, "read", path)) {
+            value = read(reader);
+        }
+
+        MapperListener listener = Listeners.get();
+        if (Listeners.isActive(listener)) {
+            listener.onFile(path, Files.size(path), false);
+        }
+        return value;
+    }
+
+    /**
+     * Reads the file by way of a binary snapshot kept alongside it (as .name.snapshot), which is much faster to load
+     * than the text. The snapshot is used only while the file's size and modified time, and the layout of the mapped
+     * types, are the same as when it was made. Otherwise the text is parsed and a new snapshot written
+     */
+    default T readCached(Path path) throws Exception {
+        return Snapshot.read((Node<T>) this, path);
+    }
+
+    /**
+     * Reads a large document using the threads of the pool. The whole text is held in memory while the entries of
+     * the root object, map or list are indexed, then batches of entries are parsed in parallel and put back together
+     * in document order. Documents under a megabyte are simply read on the calling thread
+     */
+    default T readParallel(Reader reader, ForkJoinPool pool) throws Exception {
+        return ParallelReader.read((Node<T>) this, reader, 0, pool);
+    }
+
+    default T readParallel(Path path, ForkJoinPool pool) throws Exception {
+        try (Reader reader = Listeners.open((Node<T>) this, "readParallel", path)) {
+            return ParallelReader.read((Node<T>) this, reader, Files.size(path), pool);
+        }
+    }
+
+    default T readParallel(Path path) throws Exception {
+        return readParallel(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads many files concurrently on threads of their own, one per processor at most, that are stopped once all
+     * the files have been read. The common pool is not used as the tasks block on file I/O. See
+     * readAll(Collection, Executor, BiConsumer)
+     */
+    default Map<Path, T> readAll(Collection<Path> paths, BiConsumer<Path, Exception> onError) {
+        if (paths.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        int threads = Math.min(paths.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "cfg-read");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            return readAll(paths, executor, onError);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Reads many files concurrently, each file being read and parsed as a separate task on the executor. Returns
+     * the values of the files that were read, in the order the paths were given. Files that could not be read are
+     * left out and passed to onError, on the calling thread, once all tasks have finished
+     */
+    default Map<Path, T> readAll(Collection<Path> paths, Executor executor, BiConsumer<Path, Exception> onError) {
+        Path[] files = paths.toArray(new Path[0]);
+        Object[] results = new Object[files.length];
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[files.length];
+
+        for (int i = 0; i < files.length; i++) {
+            int index = i;
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    results[index] = read(files[index]);
+                } catch (Exception e) {
+                    results[index] = e;
+                }
+            }, executor);
+        }
+
+        // the join also makes each task's result visible to this thread
+        CompletableFuture.allOf(tasks).join();
+
+        Map<Path, T> values = new LinkedHashMap<>();
+        for (int i = 0; i < files.length; i++) {
+            if (results[i] instanceof Exception) {
+                onError.accept(files[i], (Exception) results[i]);
+            } else {
+                @SuppressWarnings("unchecked")
+                T value = (T) results[i];
+                values.put(files[i], value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Lazily reads the elements of a root list (a type declaring a $self List), parsing one element per call to
+     * next(). The reader is closed once the last element has been read
+     */
+    default <V> Iterator<V> iterator(Reader reader) {
+        Node<T> internal = (Node<T>) this;
+        if (!internal.isList()) {
+            throw new UnsupportedOperationException("Mapper is not for a list");
+        }
+        return Elements.of(new Parser(reader), internal.asList(), "iterator");
+    }
+
+    /**
+     * Lazily reads the elements of a root list. The Stream should be closed if it is not consumed in full
+     */
+    default <V> Stream<V> stream(Reader reader) {
+        Node<T> internal = (Node<T>) this;
+        if (!internal.isList()) {
+            throw new UnsupportedOperationException("Mapper is not for a list");
+        }
+        return Elements.<V>of(new Parser(reader), internal.asList(), "stream").stream();
+    }
+
+    default <V> Stream<V> stream(Path path) throws IOException {
+        // checked before the file is opened so that a wrong kind of Mapper does not leak the reader
+        if (!((Node<T>) this).isList()) {
+            throw new UnsupportedOperationException("Mapper is not for a list");
+        }
+        return stream(Listeners.open((Node<T>) this, "stream", path));
+    }
+
+    /**
+     * Lazily reads the entries of a root map (a type declaring a $self Map). The Stream should be closed if it is
+     * not consumed in full
+     */
+    default <K, V> Stream<Map.Entry<K, V>> entries(Reader reader) {
+        Node<T> internal = (Node<T>) this;
+        if (!internal.isMap()) {
+            throw new UnsupportedOperationException("Mapper is not for a map");
+        }
+        return Elements.<K, V>of(new Parser(reader), internal.asMap(), "entries").stream();
+    }
+
+    default <K, V> Stream<Map.Entry<K, V>> entries(Path path) throws IOException {
+        if (!((Node<T>) this).isMap()) {
+            throw new UnsupportedOperationException("Mapper is not for a map");
+        }
+        return entries(Listeners.open((Node<T>) this, "entries", path));
+    }
+
+    /**
+     * Reads into an existing instance rather than a new one, returning the paths (dot separated) of the values that
+     * changed. Objects already held in fields, maps and lists are updated in place, with map entries matched by key
+     * and list elements by position; entries missing from the input are removed, and fields missing from the
+     * input are reset to the values a fresh read would give them
+     */
+    default List<String> reload(T existing, Reader reader) throws Exception {
+        Node<T> internal = (Node<T>) this;
+        if (internal.isValue()) {
+            throw new UnsupportedOperationException("Cannot reload a value in place");
+        }
+
+        MapperListener listener = Listeners.get();
+        long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
+
+        List<String> changes = new ArrayList<>();
+        Parser parser = new Parser(reader, changes);
+        Exception error = null;
+        try {
+            parser.unMarshal(existing, internal);
+            return changes;
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            Listeners.onRead(listener, internal, "reload", start, parser, error);
+            parser.close();
+        }
+    }
+
+    default List<String> reload(T existing, Path path) throws Exception {
+        try (Reader reader = Listeners.open((Node<T>) this, "reload", path)) {
+            return reload(existing, reader);
         }
     }
 
     /**
      * Performs a read and write on the given file, returning it's value
      * If the file does not exist on read, the fallback value is used
+     * The file is only rewritten if its content would change
      */
     default T must(File file, Supplier<T> fallback) {
+        Class<?> type = Listeners.getType((Node<T>) this);
+        MapperListener listener = Listeners.get();
+        long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
+        boolean usedFallback = false;
         T value;
 
         if (file.exists()) {
             try {
                 value = read(file);
             } catch (Exception e) {
-                e.printStackTrace();
+                listener.onError(type, "must", e);
                 value = fallback.get();
+                usedFallback = true;
             }
         } else {
             value = fallback.get();
+            usedFallback = true;
         }
 
         try {
-            write(value, file);
+            update(value, file);
         } catch (Exception e1) {
-            e1.printStackTrace();
+            listener.onError(type, "must", e1);
         }
 
+        if (Listeners.isActive(listener)) {
+            listener.onMust(type, System.nanoTime() - start, usedFallback);
+        }
         return value;
     }
 
     default T must(Path path, Supplier<T> fallback) {
+        Class<?> type = Listeners.getType((Node<T>) this);
+        MapperListener listener = Listeners.get();
+        long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
+        boolean usedFallback = true;
+        T value;
+
         if (Files.exists(path)) {
             try {
-                return read(path);
+                value = read(path);
+                usedFallback = false;
             } catch (Exception e) {
-                e.printStackTrace();
-                return fallback.get();
+                listener.onError(type, "must", e);
+                value = fallback.get();
             }
         } else {
-            T value = fallback.get();
+            value = fallback.get();
             try {
                 write(value, path);
             } catch (Exception e) {
-                e.printStackTrace();
+                listener.onError(type, "must", e);
             }
-            return value;
         }
+
+        if (Listeners.isActive(listener)) {
+            listener.onMust(type, System.nanoTime() - start, usedFallback);
+        }
+        return value;
     }
 
-    default void write(T object, Writer writer) throws Exception {
-        ((Node<T>) this).write(writer, object, Style.DEFAULT, 0, false);
+    /**
+     * Renders the object and writes it to the file only if the result differs from the file's current content.
+     * Returns true if the file was written
+     */
+    default boolean update(T object, File file) throws Exception {
+        return update(object, file.toPath());
     }
 
-    default void write(T object, File file) throws Exception {
-        file.getAbsoluteFile().getParentFile().mkdirs();
-        try (Writer writer = new FileWriter(file)) {
+    default boolean update(T object, Path path) throws Exception {
+        FileUtils.Content content = new FileUtils.Content();
+        try (Writer writer = new OutputStreamWriter(content, StandardCharsets.UTF_8)) {
             write(object, writer);
         }
+
+        boolean written = FileUtils.update(path, content);
+        MapperListener listener = Listeners.get();
+        if (written && Listeners.isActive(listener)) {
+            listener.onFile(path, content.size(), true);
+        }
+        return written;
+    }
+
+    /**
+     * Renders into a buffer that is passed on to the writer in large chunks. The writer is flushed but not closed
+     */
+    default void write(T object, Writer writer) throws Exception {
+        Node<T> internal = (Node<T>) this;
+        MapperListener listener = Listeners.get();
+        long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
+
+        long chars;
+        try (Output output = Output.of(writer)) {
+            internal.write(output, object, Style.DEFAULT, 0, false);
+            chars = output.written();
+        }
+
+        if (Listeners.isActive(listener)) {
+            listener.onWrite(Listeners.getType(internal), System.nanoTime() - start, chars);
+        }
     }
 
+    default void write(T object, File file) throws Exception {
+        write(object, file.toPath());
+    }
+
+    /**
+     * Writes to a temporary file that then replaces the target, so readers never see a partially written file
+     */
     default void write(T object, Path path) throws Exception {
-        Files.createDirectories(path.getParent());
-        try (Writer writer = Files.newBufferedWriter(path)) {
-            write(object, writer);
+        FileUtils.write(path, writer -> write(object, writer));
+
+        MapperListener listener = Listeners.get();
+        if (Listeners.isActive(listener)) {
+            listener.onFile(path, Files.size(path), true);
+        }
+    }
+
+    /**
+     * Renders a root list (a type declaring a $self List) from elements drawn one at a time from the iterator,
+     * using the list's element template and style. Output is passed to the writer as it fills, so the elements
+     * never need to be collected in memory. The writer is flushed but not closed
+     */
+    default void writeElements(Iterator<?> elements, Writer writer) throws Exception {
+        Node<T> internal = (Node<T>) this;
+        if (!internal.isList()) {
+            throw new UnsupportedOperationException("Mapper is not for a list");
+        }
+        try (Output output = Output.of(writer)) {
+            internal.asList().write(output, elements, Style.DEFAULT, 0);
+        }
+    }
+
+    default void writeElements(Stream<?> elements, Writer writer) throws Exception {
+        writeElements(elements.iterator(), writer);
+    }
+
+    /**
+     * Renders elements from the supplier until it returns null
+     */
+    default void writeElements(Supplier<?> elements, Writer writer) throws Exception {
+        writeElements(new Iterator<Object>() {
+
+            private Object next = elements.get();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Object next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Object current = next;
+                next = elements.get();
+                return current;
+            }
+        }, writer);
+    }
+
+    default void writeElements(Iterator<?> elements, Path path) throws Exception {
+        FileUtils.write(path, writer -> writeElements(elements, writer));
+    }
+
+    /**
+     * Renders a root map (a type declaring a $self Map) from entries drawn one at a time from the iterator. The
+     * writer is flushed but not closed
+     */
+    default void writeEntries(Iterator<? extends Map.Entry<?, ?>> entries, Writer writer) throws Exception {
+        Node<T> internal = (Node<T>) this;
+        if (!internal.isMap()) {
+            throw new UnsupportedOperationException("Mapper is not for a map");
+        }
+        try (Output output = Output.of(writer)) {
+            internal.asMap().write(output, entries, Style.DEFAULT, 0);
         }
     }
 
+    default void writeEntries(Stream<? extends Map.Entry<?, ?>> entries, Writer writer) throws Exception {
+        writeEntries(entries.iterator(), writer);
+    }
+
+    default void writeEntries(Iterator<? extends Map.Entry<?, ?>> entries, Path path) throws Exception {
+        FileUtils.write(path, writer -> writeEntries(entries, writer));
+    }
+
+    /**
+     * Installs the listener that receives timings, counts and handled errors from all Mappers, replacing any found
+     * through ServiceLoader. Passing null restores the default, which only prints errors
+     */
+    static void setListener(MapperListener listener) {
+        Listeners.set(listener);
+    }
+
+    /**
+     * Registers the codec used to read and write fields, map keys and list elements of the given type, replacing
+     * any built-in codec for it. Must be called before the first Mapper that uses the type is created
+     */
+    static <V> void registerCodec(Class<V> type, ValueCodec<V> codec) {
+        Codecs.register(type, codec);
+    }
+
     static <T> Mapper<T> of(Class<T> type) {
         return ClassMapper.getNode(type);
     }
+
+    /**
+     * Number of node lookups served from the shared template cache
+     */
+    static long cacheHits() {
+        return ClassMapper.getHits();
+    }
+
+    /**
+     * Number of node lookups that required a type to be compiled
+     */
+    static long cacheMisses() {
+        return ClassMapper.getMisses();
+    }
 }
@@ -0,0 +1,85 @@
+package me.dags.config;
+
+import java.nio.file.Path;
+
+/**
+ * Receives timings and counts for the work done by Mappers, for example to feed a metrics system. A single listener
+ * is installed for the whole library with Mapper.setListener(..), or found on the classpath through
+ * java.util.ServiceLoader (META-INF/services/me.dags.config.MapperListener). While no listener is installed the
+ * Mappers skip the timing altogether.
+ * <p>
+ * Methods are called on the thread doing the work and should return quickly. The type passed to each method is the
+ * mapped class, or null where the Mapper is for a root map or list
+ *
+ * @author dags <dags@dags.me>
+ */
+public interface MapperListener {
+
+    /**
+     * Ignores all events, other than printing the stack trace of errors as the Mappers always have
+     */
+    MapperListener NONE = new MapperListener() {};
+
+    /**
+     * Called after a document has been parsed
+     *
+     * @param nanos       time taken to parse
+     * @param chars       number of chars read from the source
+     * @param nodes       number of values, objects, lists and maps read
+     * @param unknownKeys number of keys that did not match a field and were skipped
+     */
+    default void onRead(Class<?> type, long nanos, long chars, long nodes, long unknownKeys) {
+
+    }
+
+    /**
+     * Called after every read, whether it succeeded or not. Successful reads are passed on to
+     * onRead(Class, long, long, long, long), while failed ones are only reported here as the error is also thrown
+     * to the caller. Reads served from a snapshot count no chars or nodes, and the Iterators and Streams of
+     * elements report once they have been read to the end, closed, or have failed
+     *
+     * @param operation the name of the Mapper method, e.g. read, reload, readCached or stream
+     * @param error     the exception that ended the read, or null if it succeeded
+     */
+    default void onRead(Class<?> type, String operation, long nanos, long chars, long nodes, long unknownKeys, Exception error) {
+        if (error == null) {
+            onRead(type, nanos, chars, nodes, unknownKeys);
+        }
+    }
+
+    /**
+     * Called after a value has been rendered
+     *
+     * @param nanos time taken to render and pass the output to the writer
+     * @param chars number of chars written
+     */
+    default void onWrite(Class<?> type, long nanos, long chars) {
+
+    }
+
+    /**
+     * Called when a file has been read from or written to
+     */
+    default void onFile(Path path, long bytes, boolean write) {
+
+    }
+
+    /**
+     * Called after Mapper.must(..) has loaded (and if necessary written) its file
+     *
+     * @param fallback true if the fallback value was used because the file was missing or could not be read
+     */
+    default void onMust(Class<?> type, long nanos, boolean fallback) {
+
+    }
+
+    /**
+     * Called with the errors that Mappers handle themselves, such as a failure to convert a value in setValue(..)
+     * or to read the file in must(..), rather than throwing them to the caller
+     *
+     * @param operation the name of the Mapper method
+     */
+    default void onError(Class<?> type, String operation, Exception error) {
+        error.printStackTrace();
+    }
+}
@@ -0,0 +1,125 @@
+package me.dags.config;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A MapperListener that keeps running totals which can be scraped by a metrics system, e.g.
+ * <pre>
+ *     MapperMetrics metrics = new MapperMetrics();
+ *     Mapper.setListener(metrics);
+ *     ...
+ *     metrics.snapshot().forEach(gauge::set);
+ * </pre>
+ * Reads are counted whether they succeed or not, with failed reads also counted as read errors. Errors that the
+ * Mappers handle themselves are counted and then passed on to the given listener, which by default prints them
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class MapperMetrics implements MapperListener {
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder readChars = new LongAdder();
+    private final LongAdder readNodes = new LongAdder();
+    private final LongAdder unknownKeys = new LongAdder();
+    private final LongAdder readErrors = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder writeChars = new LongAdder();
+    private final LongAdder fileReads = new LongAdder();
+    private final LongAdder fileReadBytes = new LongAdder();
+    private final LongAdder fileWrites = new LongAdder();
+    private final LongAdder fileWriteBytes = new LongAdder();
+    private final LongAdder musts = new LongAdder();
+    private final LongAdder mustNanos = new LongAdder();
+    private final LongAdder mustFallbacks = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final MapperListener errorHandler;
+
+    public MapperMetrics() {
+        this(NONE);
+    }
+
+    public MapperMetrics(MapperListener errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public void onRead(Class<?> type, long nanos, long chars, long nodes, long unknownKeys) {
+        reads.increment();
+        readNanos.add(nanos);
+        readChars.add(chars);
+        readNodes.add(nodes);
+        this.unknownKeys.add(unknownKeys);
+    }
+
+    @Override
+    public void onRead(Class<?> type, String operation, long nanos, long chars, long nodes, long unknownKeys, Exception error) {
+        onRead(type, nanos, chars, nodes, unknownKeys);
+        if (error != null) {
+            readErrors.increment();
+            errors.increment();
+        }
+    }
+
+    @Override
+    public void onWrite(Class<?> type, long nanos, long chars) {
+        writes.increment();
+        writeNanos.add(nanos);
+        writeChars.add(chars);
+    }
+
+    @Override
+    public void onFile(Path path, long bytes, boolean write) {
+        if (write) {
+            fileWrites.increment();
+            fileWriteBytes.add(bytes);
+        } else {
+            fileReads.increment();
+            fileReadBytes.add(bytes);
+        }
+    }
+
+    @Override
+    public void onMust(Class<?> type, long nanos, boolean fallback) {
+        musts.increment();
+        mustNanos.add(nanos);
+        if (fallback) {
+            mustFallbacks.increment();
+        }
+    }
+
+    @Override
+    public void onError(Class<?> type, String operation, Exception error) {
+        errors.increment();
+        errorHandler.onError(type, operation, error);
+    }
+
+    /**
+     * The current totals, keyed by name
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("reads", reads.sum());
+        snapshot.put("read.nanos", readNanos.sum());
+        snapshot.put("read.chars", readChars.sum());
+        snapshot.put("read.nodes", readNodes.sum());
+        snapshot.put("read.unknown_keys", unknownKeys.sum());
+        snapshot.put("read.errors", readErrors.sum());
+        snapshot.put("writes", writes.sum());
+        snapshot.put("write.nanos", writeNanos.sum());
+        snapshot.put("write.chars", writeChars.sum());
+        snapshot.put("file.reads", fileReads.sum());
+        snapshot.put("file.read.bytes", fileReadBytes.sum());
+        snapshot.put("file.writes", fileWrites.sum());
+        snapshot.put("file.write.bytes", fileWriteBytes.sum());
+        snapshot.put("musts", musts.sum());
+        snapshot.put("must.nanos", mustNanos.sum());
+        snapshot.put("must.fallbacks", mustFallbacks.sum());
+        snapshot.put("errors", errors.sum());
+        return snapshot;
+    }
+}
@@ -54,6 +54,10 @@ public interface Node<T> extends Mapper<T> {
         return false;
     }
 
+    default boolean isLazy() {
+        return false;
+    }
+
     default boolean isEmpty(Object owner) throws IllegalAccessException {
         return false;
     }
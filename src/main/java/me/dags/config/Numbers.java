@@ -0,0 +1,249 @@
+package me.dags.config;
+
+import java.io.IOException;
+
+/**
+ * Parses and formats primitive values directly against char buffers and Appendables so that the common cases
+ * do not allocate intermediate Strings. Inputs outside the fast paths are delegated to the JDK so results are
+ * always identical to Integer.parseInt, Double.parseDouble, Double.toString etc.
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Numbers {
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] POW10F = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    private static final long[] TENS = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+
+    private Numbers() {
+
+    }
+
+    static boolean parseBoolean(CharSequence input) {
+        return input.length() == 4
+                && Character.toLowerCase(input.charAt(0)) == 't'
+                && Character.toLowerCase(input.charAt(1)) == 'r'
+                && Character.toLowerCase(input.charAt(2)) == 'u'
+                && Character.toLowerCase(input.charAt(3)) == 'e';
+    }
+
+    static byte parseByte(CharSequence input) {
+        int value = parseInt(input);
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw error(input);
+        }
+        return (byte) value;
+    }
+
+    static short parseShort(CharSequence input) {
+        int value = parseInt(input);
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw error(input);
+        }
+        return (short) value;
+    }
+
+    static int parseInt(CharSequence input) {
+        long value = parseLong(input, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return (int) value;
+    }
+
+    static long parseLong(CharSequence input) {
+        return parseLong(input, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static long parseLong(CharSequence input, long min, long max) {
+        int length = input.length();
+        if (length == 0) {
+            throw error(input);
+        }
+
+        int i = 0;
+        boolean negative = false;
+        char first = input.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == length) {
+                throw error(input);
+            }
+        }
+
+        // accumulate negatively so that MIN_VALUE can be represented
+        long limit = negative ? min : -max;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            char c = input.charAt(i);
+            if (c > 127) {
+                // non-ascii digits are accepted by the JDK parsers
+                return parseSlow(input, min, max);
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9 || result < multmin) {
+                throw error(input);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw error(input);
+            }
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
+    private static long parseSlow(CharSequence input, long min, long max) {
+        long value = Long.parseLong(input.toString());
+        if (value < min || value > max) {
+            throw error(input);
+        }
+        return value;
+    }
+
+    static float parseFloat(CharSequence input) {
+        int length = input.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (input.charAt(0) == '-' || input.charAt(0) == '+')) {
+            negative = input.charAt(0) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 7) {
+                    return Float.parseFloat(input.toString());
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return Float.parseFloat(input.toString());
+            }
+        }
+
+        if (digits == 0 || mantissa > MAX_EXACT_FLOAT || scale >= POW10F.length) {
+            return Float.parseFloat(input.toString());
+        }
+
+        // both operands are exact so the single division is correctly rounded
+        float value = (float) mantissa / POW10F[scale];
+        return negative ? -value : value;
+    }
+
+    static double parseDouble(CharSequence input) {
+        int length = input.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (input.charAt(0) == '-' || input.charAt(0) == '+')) {
+            negative = input.charAt(0) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = input.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15) {
+                    return Double.parseDouble(input.toString());
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return Double.parseDouble(input.toString());
+            }
+        }
+
+        if (digits == 0 || mantissa > MAX_EXACT_DOUBLE || scale >= POW10.length) {
+            return Double.parseDouble(input.toString());
+        }
+
+        // both operands are exact so the single division is correctly rounded
+        double value = mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    static void append(Appendable appendable, boolean value) throws IOException {
+        appendable.append(value ? "true" : "false");
+    }
+
+    static void append(Appendable appendable, long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            appendable.append("-9223372036854775808");
+            return;
+        }
+
+        if (value < 0) {
+            appendable.append('-');
+            value = -value;
+        }
+
+        int digits = 1;
+        while (digits < TENS.length && value >= TENS[digits]) {
+            digits++;
+        }
+
+        while (digits-- > 0) {
+            long unit = TENS[digits];
+            int digit = (int) (value / unit);
+            appendable.append((char) ('0' + digit));
+            value -= digit * unit;
+        }
+    }
+
+    static void append(Appendable appendable, double value) throws IOException {
+        if (isSmallIntegral(value, 1e7)) {
+            // Double.toString renders integral values below 10^7 as the integer followed by '.0'
+            append(appendable, (long) value);
+            appendable.append(".0");
+        } else {
+            appendable.append(Double.toString(value));
+        }
+    }
+
+    static void append(Appendable appendable, float value) throws IOException {
+        if (isSmallIntegral(value, 1e7)) {
+            append(appendable, (long) value);
+            appendable.append(".0");
+        } else {
+            appendable.append(Float.toString(value));
+        }
+    }
+
+    private static boolean isSmallIntegral(double value, double bound) {
+        return value > -bound && value < bound && value == (long) value && Double.doubleToRawLongBits(value) != Long.MIN_VALUE;
+    }
+
+    private static NumberFormatException error(CharSequence input) {
+        return new NumberFormatException("For input string: \"" + input + "\"");
+    }
+}
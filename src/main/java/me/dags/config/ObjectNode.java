@@ -5,7 +5,6 @@ import me.dags.config.style.Order;
 import me.dags.config.style.Style;
 
 import java.io.IOException;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
@@ -18,17 +17,23 @@ class ObjectNode<T> implements Node<T> {
     static final ObjectNode EMPTY = new ObjectNode();
 
     private final Map<String, Comment> comments;
+    private final Map<String, String> prefixes;
     private final Map<String, Node> fields;
+    private final KeyTable table;
     private final List<String> order;
-    private final Constructor<T> constructor;
-    private final Field field;
+    private final Factory<T> factory;
+    private final Class<T> type;
+    private final Accessor field;
     private final Style style;
 
     private ObjectNode() {
         comments = Collections.emptyMap();
+        prefixes = Collections.emptyMap();
         fields = Collections.emptyMap();
+        table = KeyTable.of(fields);
         order = Collections.emptyList();
-        constructor = null;
+        factory = null;
+        type = null;
         field = null;
         style = Style.DEFAULT;
     }
@@ -36,8 +41,11 @@ class ObjectNode<T> implements Node<T> {
     private ObjectNode(Builder<T> builder) {
         comments = Collections.unmodifiableMap(new HashMap<>(builder.comments));
         fields = Collections.unmodifiableMap(new HashMap<>(builder.fields));
+        table = KeyTable.of(fields);
+        prefixes = getPrefixes(fields.keySet());
         order = Collections.unmodifiableList(new LinkedList<>(builder.order));
-        constructor = ClassUtils.getConstructor(builder.type);
+        factory = builder.factory != null ? builder.factory : Factory.of(ClassUtils.getConstructor(builder.type));
+        type = builder.type;
         field = builder.field;
         style = builder.style;
     }
@@ -58,7 +66,7 @@ class ObjectNode<T> implements Node<T> {
         empty = !Render.header(appendable, comments.get("#header"), style, level, root);
 
         int childLevel = level + 1;
-        Object instance = field != null ? get(owner) : owner;
+        Object instance = getInstance(owner);
         Collection<String> keys = order.isEmpty() ? fields.keySet() : order;
 
         for (String next : keys) {
@@ -80,7 +88,7 @@ class ObjectNode<T> implements Node<T> {
             empty = false;
             Render.comment(appendable, comments.get(next), style, level);
             Render.indents(appendable, style, level);
-            Render.key(appendable, MapNode.getSafeKey(next), style);
+            Render.prefix(appendable, prefixes.get(next), style);
             value.write(appendable, instance, style, childLevel, false);
         }
 
@@ -97,7 +105,14 @@ class ObjectNode<T> implements Node<T> {
 
     @Override
     public T newInstance() throws IllegalAccessException, InstantiationException, InvocationTargetException {
-        return constructor.newInstance();
+        return factory.create();
+    }
+
+    /**
+     * The factory that creates instances of the type, or null where it has no public no-args constructor
+     */
+    Factory<T> getFactory() {
+        return factory;
     }
 
     @Override
@@ -130,11 +145,35 @@ class ObjectNode<T> implements Node<T> {
         return true;
     }
 
-    Node getChild(String name) {
-        return fields.getOrDefault(name, ValueNode.EMPTY);
+    Node getChild(CharSequence name) {
+        return table.get(name);
+    }
+
+    Object getInstance(Object owner) throws IllegalAccessException {
+        return field != null ? get(owner) : owner;
+    }
+
+    Collection<String> getKeys() {
+        return order.isEmpty() ? fields.keySet() : order;
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+
+    private static Map<String, String> getPrefixes(Collection<String> names) {
+        Map<String, String> prefixes = new HashMap<>();
+        for (String name : names) {
+            prefixes.put(name, MapNode.getSafeKey(name).toString() + Render.ASSIGN);
+        }
+        return prefixes;
     }
 
     static <T> Builder<T> builder(Class<T> type, Field field) {
+        return new Builder<>(type, Accessor.of(field));
+    }
+
+    static <T> Builder<T> builder(Class<T> type, Accessor field) {
         return new Builder<>(type, field);
     }
 
@@ -144,10 +183,11 @@ class ObjectNode<T> implements Node<T> {
         private final Map<String, Node> fields = new HashMap<>();
         private final Set<String> order = new LinkedHashSet<>();
         private final Class<T> type;
-        private final Field field;
+        private final Accessor field;
         private Style style = Style.DEFAULT;
+        private Factory<T> factory = null;
 
-        private Builder(Class<T> type, Field field) {
+        private Builder(Class<T> type, Accessor field) {
             this.type = type;
             this.field = field;
         }
@@ -160,6 +200,11 @@ class ObjectNode<T> implements Node<T> {
             return this;
         }
 
+        Builder<T> factory(Factory<T> factory) {
+            this.factory = factory;
+            return this;
+        }
+
         Builder style(Style style) {
             this.style = style;
             return this;
@@ -0,0 +1,145 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Collects rendered output in a large char buffer and passes it on to the underlying Writer in whole chunks, so that
+ * the many small appends made while rendering never reach the sink individually. The buffer is borrowed from a
+ * per-thread pool and returned on close. Closing an Output flushes it but leaves the underlying Writer open
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Output extends Writer {
+
+    private static final int BUFFER_SIZE = 32768;
+    private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<>();
+
+    private final Writer sink;
+    private char[] buffer;
+    private int length = 0;
+    private long written = 0;
+
+    private Output(Writer sink, char[] buffer) {
+        this.sink = sink;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public Output append(char c) throws IOException {
+        if (length == buffer.length) {
+            drain();
+        }
+        buffer[length++] = c;
+        return this;
+    }
+
+    @Override
+    public Output append(CharSequence text) throws IOException {
+        if (text instanceof String) {
+            String string = (String) text;
+            write(string, 0, string.length());
+        } else if (text == null) {
+            write("null", 0, 4);
+        } else {
+            append(text, 0, text.length());
+        }
+        return this;
+    }
+
+    @Override
+    public Output append(CharSequence text, int start, int end) throws IOException {
+        if (text instanceof String) {
+            write((String) text, start, end - start);
+            return this;
+        }
+
+        if (text == null) {
+            return append("null", start, end);
+        }
+
+        for (int i = start; i < end; i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        append((char) c);
+    }
+
+    @Override
+    public void write(String text, int off, int len) throws IOException {
+        while (len > 0) {
+            if (length == buffer.length) {
+                drain();
+            }
+            int count = Math.min(len, buffer.length - length);
+            text.getChars(off, off + count, buffer, length);
+            length += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+        if (len >= buffer.length) {
+            drain();
+            sink.write(chars, off, len);
+            written += len;
+            return;
+        }
+
+        if (len > buffer.length - length) {
+            drain();
+        }
+        System.arraycopy(chars, off, buffer, length, len);
+        length += len;
+    }
+
+    /**
+     * The number of chars rendered so far, including any still held in the buffer
+     */
+    long written() {
+        return written + length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        sink.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) {
+            try {
+                flush();
+            } finally {
+                BUFFERS.set(buffer);
+                buffer = null;
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        if (length > 0) {
+            sink.write(buffer, 0, length);
+            written += length;
+            length = 0;
+        }
+    }
+
+    static Output of(Writer sink) {
+        char[] buffer = BUFFERS.get();
+        if (buffer == null) {
+            buffer = new char[BUFFER_SIZE];
+        } else {
+            // a nested write on this thread will allocate its own buffer
+            BUFFERS.set(null);
+        }
+        return new Output(sink, buffer);
+    }
+}
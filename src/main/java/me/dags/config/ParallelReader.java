@@ -0,0 +1,332 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads a document using the threads of a ForkJoinPool. The text is held in memory and a first, sequential pass
+ * indexes the entries of the root object, map or list, recording where each starts and ends without tokenizing it.
+ * Runs of consecutive entries are then parsed as separate tasks over the same char array and gathered back in
+ * document order
+ *
+ * @author dags <dags@dags.me>
+ */
+final class ParallelReader {
+
+    /**
+     * Documents shorter than this (in chars) are read on the calling thread as the indexing and task overhead would
+     * outweigh the gain
+     */
+    static final int THRESHOLD = 1024 * 1024;
+
+    private static final int MIN_BATCH = 64 * 1024;
+    // several batches per thread lets the pool balance out entries of uneven size
+    private static final int BATCHES_PER_THREAD = 4;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+    private ParallelReader() {
+
+    }
+
+    static <T> T read(Node<T> node, Reader reader, long sizeHint, ForkJoinPool pool) throws Exception {
+        MapperListener listener = Listeners.get();
+        long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
+        LongAdder nodes = new LongAdder();
+        LongAdder unknownKeys = new LongAdder();
+        long length = 0L;
+        Exception error = null;
+        try {
+            Slice text = readFully(reader, sizeHint);
+            length = text.length();
+            return read(node, text.buffer(), text.length(), pool, nodes, unknownKeys);
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            Listeners.onRead(listener, node, "readParallel", start, length, nodes.sum(), unknownKeys.sum(), error);
+        }
+    }
+
+    /**
+     * Reads the text, adding the number of nodes read and unknown keys skipped by each parser that finishes to the
+     * counters
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T read(Node<T> node, char[] chars, int length, ForkJoinPool pool, LongAdder nodes, LongAdder unknownKeys) throws Exception {
+        if (node.isValue() || length < THRESHOLD || pool.getParallelism() < 2) {
+            try (Parser parser = new Parser(chars, 0, length)) {
+                T value = parser.unMarshal(node.isValue() ? null : node.newInstance(), node);
+                nodes.add(parser.nodes());
+                unknownKeys.add(parser.unknownKeys());
+                return value;
+            }
+        }
+
+        T owner = node.newInstance();
+        int batchSize = Math.max(MIN_BATCH, length / (pool.getParallelism() * BATCHES_PER_THREAD));
+        int[] bounds = index(chars, length, node, batchSize);
+
+        // each batch of an object's fields counts the object itself, while batches of entries or elements do not
+        nodes.add(node.isObject() ? 1 - bounds.length / 2 : 1);
+
+        List<ForkJoinTask<List<Object>>> tasks = new ArrayList<>(bounds.length / 2);
+        for (int i = 0; i < bounds.length; i += 2) {
+            int offset = bounds[i];
+            int count = bounds[i + 1] - offset;
+            tasks.add(pool.submit(() -> parse(node, owner, chars, offset, count, nodes, unknownKeys)));
+        }
+
+        if (node.isMap()) {
+            Map instance = node.asMap().getMap(owner);
+            instance.clear();
+            for (ForkJoinTask<List<Object>> task : tasks) {
+                for (Object entry : join(task, tasks)) {
+                    instance.put(((Map.Entry) entry).getKey(), ((Map.Entry) entry).getValue());
+                }
+            }
+            return (T) instance;
+        }
+
+        if (node.isList()) {
+            List instance = node.asList().getList(owner);
+            instance.clear();
+            for (ForkJoinTask<List<Object>> task : tasks) {
+                instance.addAll(join(task, tasks));
+            }
+            return (T) instance;
+        }
+
+        // fields are set on the owner by the tasks themselves, joining them makes the writes visible
+        for (ForkJoinTask<List<Object>> task : tasks) {
+            join(task, tasks);
+        }
+        return owner;
+    }
+
+    /**
+     * Scans the root's entries, returning the start and end offsets of each batch of entries that together span at
+     * least batchSize chars. Keys are read and values skipped using the same rules as the Parser, so brackets inside
+     * quoted strings, raw values and comments do not upset the scan
+     */
+    /**
+     * Scans the root's entries, returning the start and end offsets of each batch of entries that together span at
+     * least batchSize chars. This is a single pass over the array that follows only the structure of the text:
+     * keys and values are jumped over by searching for the char that ends them (a line break, the assign char or the
+     * closing quote) and nothing is sliced or parsed. It follows the same rules as the Parser, so brackets inside
+     * quoted strings, raw values and comments do not upset the scan
+     */
+    static int[] index(char[] chars, int length, Node<?> node, int batchSize) {
+        boolean list = node.isList();
+        boolean comments = node.isObject();
+        char open = list ? Render.START_LIST : Render.START_OBJECT;
+        char close = list ? Render.END_LIST : Render.END_OBJECT;
+
+        int pos = skipComments(chars, 0, length);
+        if (pos < length && chars[pos] == open) {
+            pos++;
+        }
+
+        int[] bounds = new int[16];
+        int count = 0;
+        int start = -1;
+        int end = 0;
+
+        while (true) {
+            pos = comments ? skipComments(chars, pos, length) : skipSpace(chars, pos, length, true);
+            if (pos >= length || chars[pos] == close) {
+                break;
+            }
+
+            if (start < 0) {
+                start = pos;
+            }
+
+            if (!list) {
+                pos = skipKey(chars, pos, length);
+            }
+
+            pos = skipValue(chars, pos, length);
+            end = pos;
+
+            if (end - start >= batchSize) {
+                bounds = add(bounds, count, start, end);
+                count += 2;
+                start = -1;
+            }
+        }
+
+        if (start >= 0) {
+            bounds = add(bounds, count, start, end);
+            count += 2;
+        }
+
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Skips a key and the assign char that follows it
+     */
+    private static int skipKey(char[] chars, int pos, int end) {
+        char c = chars[pos];
+        if (c == Render.QUOTE || c == Render.ESCAPE) {
+            pos = skipQuoted(chars, pos, end);
+            pos = skipSpace(chars, pos, end, false);
+            return pos < end && chars[pos] == Render.ASSIGN ? pos + 1 : pos;
+        }
+        return after(CharScanner.indexOf(chars, pos, end, Render.NEWLINE, Render.LINE_SEPARATOR, Render.ASSIGN), end);
+    }
+
+    /**
+     * Skips the value at the position, including the whole of any object or list that it opens
+     */
+    private static int skipValue(char[] chars, int pos, int end) {
+        pos = skipSpace(chars, pos, end, false);
+        if (pos >= end) {
+            return pos;
+        }
+
+        char c = chars[pos];
+        if (c == Render.START_OBJECT) {
+            pos++;
+            while (true) {
+                pos = skipComments(chars, pos, end);
+                if (pos >= end) {
+                    return pos;
+                }
+                if (chars[pos] == Render.END_OBJECT) {
+                    return pos + 1;
+                }
+                pos = skipValue(chars, skipKey(chars, pos, end), end);
+            }
+        }
+
+        if (c == Render.START_LIST) {
+            pos++;
+            while (true) {
+                pos = skipSpace(chars, pos, end, true);
+                if (pos >= end) {
+                    return pos;
+                }
+                if (chars[pos] == Render.END_LIST) {
+                    return pos + 1;
+                }
+                pos = skipValue(chars, pos, end);
+            }
+        }
+
+        if (c == Render.QUOTE || c == Render.ESCAPE) {
+            return skipQuoted(chars, pos, end);
+        }
+
+        return after(CharScanner.indexOf(chars, pos, end, Render.NEWLINE, Render.LINE_SEPARATOR), end);
+    }
+
+    private static int skipQuoted(char[] chars, int pos, int end) {
+        return after(CharScanner.indexOf(chars, pos + 1, end, chars[pos]), end);
+    }
+
+    private static int skipComments(char[] chars, int pos, int end) {
+        pos = skipSpace(chars, pos, end, true);
+        while (pos < end && chars[pos] == Render.COMMENT) {
+            pos = after(CharScanner.indexOf(chars, pos, end, Render.NEWLINE, Render.LINE_SEPARATOR), end);
+            pos = skipSpace(chars, pos, end, true);
+        }
+        return pos;
+    }
+
+    private static int skipSpace(char[] chars, int pos, int end, boolean lineBreaks) {
+        for (; pos < end; pos++) {
+            char c = chars[pos];
+            if ((!lineBreaks && Chars.isLineBreak(c)) || !Chars.isWhitespace(c)) {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * The position after the char found by a search, which is the end if nothing was found
+     */
+    private static int after(int found, int end) {
+        return found < end ? found + 1 : end;
+    }
+
+    /**
+     * Parses one batch of entries. Map entries and list elements are returned for the caller to add in order, while
+     * the fields of an object are set on the owner directly
+     */
+    private static List<Object> parse(Node<?> node, Object owner, char[] chars, int offset, int count, LongAdder nodes, LongAdder unknownKeys) throws Exception {
+        List<Object> results = new ArrayList<>();
+        try (Parser parser = new Parser(chars, offset, count)) {
+            if (node.isMap()) {
+                MapNode map = node.asMap();
+                while (parser.hasNext(Render.END_OBJECT)) {
+                    results.add(parser.nextEntry(map));
+                }
+            } else if (node.isList()) {
+                ListNode list = node.asList();
+                while (parser.hasNext(Render.END_LIST)) {
+                    results.add(parser.nextElement(list));
+                }
+            } else {
+                parser.unMarshal(owner, node);
+            }
+            nodes.add(parser.nodes());
+            unknownKeys.add(parser.unknownKeys());
+        }
+        return results;
+    }
+
+    private static List<Object> join(ForkJoinTask<List<Object>> task, List<ForkJoinTask<List<Object>>> tasks) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            for (ForkJoinTask<?> other : tasks) {
+                other.cancel(false);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static int[] add(int[] bounds, int count, int start, int end) {
+        if (count + 2 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length << 1);
+        }
+        bounds[count] = start;
+        bounds[count + 1] = end;
+        return bounds;
+    }
+
+    /**
+     * Reads the remaining text into a single array. The size hint (e.g. the length of the file in bytes) is used to
+     * size the array up front
+     */
+    private static Slice readFully(Reader reader, long sizeHint) throws IOException {
+        char[] chars = new char[(int) Math.min(MAX_LENGTH, Math.max(BUFFER_SIZE, sizeHint))];
+        int length = 0;
+        int read;
+        while ((read = reader.read(chars, length, chars.length - length)) != -1) {
+            length += read;
+            if (length == chars.length) {
+                if (length == MAX_LENGTH) {
+                    throw new IOException("Document is too large to be read in parallel");
+                }
+                chars = Arrays.copyOf(chars, (int) Math.min(MAX_LENGTH, (long) length << 1));
+            }
+        }
+        return new Slice(chars, 0, length);
+    }
+}
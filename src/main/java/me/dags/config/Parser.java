@@ -1,24 +1,42 @@
 package me.dags.config;
 
-import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * @author dags <dags@dags.me>
  */
-class Parser implements Closeable {
+class Parser extends Tokenizer {
 
-    private final Reader reader;
-    private final char[] buffer = new char[4096];
-
-    private char c = (char) -1;
-    private boolean drained = true;
+    private final List<Object> path = new ArrayList<>();
+    private final List<String> changes;
+    private long nodes = 0;
+    private long unknownKeys = 0;
 
     Parser(Reader reader) {
-        this.reader = reader;
+        this(reader, null);
+    }
+
+    Parser(char[] chars, int offset, int length) {
+        super(chars, offset, length);
+        this.changes = null;
+    }
+
+    /**
+     * Creates a Parser that updates existing instances in place, recording the path of each value it changes
+     */
+    Parser(Reader reader, List<String> changes) {
+        super(reader);
+        this.changes = changes;
     }
 
     @SuppressWarnings("unchecked")
@@ -26,8 +44,32 @@ class Parser implements Closeable {
         return (T) parse(owner, element, false);
     }
 
+    /**
+     * Number of values, objects, maps and lists read so far, not counting map keys
+     */
+    long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Number of object keys read so far that did not match a field
+     */
+    long unknownKeys() {
+        return unknownKeys;
+    }
+
     private Object parse(Object owner, Node element, boolean key) throws Exception {
-        if (element.isObject()) {
+        if (changes != null && !key) {
+            return update(owner, element);
+        }
+
+        if (!key) {
+            nodes++;
+        }
+
+        if (element.isLazy()) {
+            return readLazy((LazyNode) element);
+        } else if (element.isObject()) {
             return populateObject(owner, element.asObject());
         } else if (element.isMap()) {
             return populateMap(owner, element.asMap());
@@ -35,9 +77,15 @@ class Parser implements Closeable {
             return populateList(owner, element.asList());
         } else {
             skipSpace(false);
-            String input = nextString(key);
+            CharSequence input = nextToken(key);
             ValueNode node = element.asValue();
-            return node.parse(input);
+            if (node.isPrimitive()) {
+                if (owner != null) {
+                    ((PrimitiveNode) node).read(owner, input);
+                }
+                return null;
+            }
+            return node.read(input);
         }
     }
 
@@ -60,17 +108,20 @@ class Parser implements Closeable {
             // skip field comments
             skipComments();
 
-            // read next field name
-            String key = nextString(true);
-            Node child = object.getChild(key);
+            // read next field name & resolve it against the object's key table without copying it
+            Node child = object.getChild(nextToken(true));
 
             // parse field
             if (child.isPresent()) {
                 Object owner = child.isObject() ? child.get(objectOwner) : objectOwner;
                 Object value = parse(owner, child, false);
-                if (child.isValue() && value != null) {
+                if ((child.isValue() || child.isLazy()) && value != null) {
                     child.set(owner, value);
                 }
+            } else {
+                // skip the value of a key that has no field, including any object or list it opens
+                unknownKeys++;
+                CfgReader.skipValue(this);
             }
         }
 
@@ -143,96 +194,307 @@ class Parser implements Closeable {
         return instance;
     }
 
-    private boolean next() throws IOException {
-        if (drained) {
-            int i = reader.read();
-            if (i == -1) {
-                return false;
-            }
+    /**
+     * Records the text of the section without parsing it
+     */
+    private Lazy<?> readLazy(LazyNode node) throws IOException {
+        skipSpace(false);
+        startCapture();
+        CfgReader.skipValue(this);
+        return node.read(endCapture().trim());
+    }
 
-            drained = false;
-            c = (char) i;
+    /**
+     * Skips to the body of a list or map that is going to be read an element at a time
+     */
+    void start(char open) throws IOException {
+        skipSpace(false);
+        if (peek() == open) {
+            consume();
         }
-        return true;
     }
 
-    private char consume() throws IOException {
-        drained = true;
-        return c;
+    /**
+     * Moves to the next element of a list or map being read an element at a time, returning false once the close
+     * char or the end of the input has been reached
+     */
+    boolean hasNext(char close) throws IOException {
+        skipSpace(true);
+        char peek = peek();
+        if (peek == close) {
+            consume();
+            return false;
+        }
+        return peek != EOF;
+    }
+
+    Object nextElement(ListNode list) throws Exception {
+        return parse(list.newValueInstance(), list.getValueTemplate(), false);
     }
 
-    private char peek() throws IOException {
-        if (drained) {
-            next();
+    Map.Entry<Object, Object> nextEntry(MapNode map) throws Exception {
+        Object key = parse(map.newKeyInstance(), map.getKeyTemplate(), true);
+        if (peek() == Render.ASSIGN) {
+            consume();
         }
-        return c;
+        Object value = parse(map.newValueInstance(), map.getValueTemplate(), false);
+        return new AbstractMap.SimpleImmutableEntry<>(key, value);
     }
 
-    private void skipSpace(boolean lineBreaks) throws IOException {
+    private Object update(Object owner, Node element) throws Exception {
+        nodes++;
+        if (element.isLazy()) {
+            return readLazy((LazyNode) element);
+        } else if (element.isObject()) {
+            return updateObject(owner, element.asObject());
+        } else if (element.isMap()) {
+            return updateMap(owner, element.asMap());
+        } else if (element.isList()) {
+            return updateList(owner, element.asList());
+        } else {
+            skipSpace(false);
+            CharSequence input = nextToken(false);
+            ValueNode node = element.asValue();
+            if (node.isPrimitive()) {
+                if (owner != null && ((PrimitiveNode) node).update(owner, input)) {
+                    changed();
+                }
+                return null;
+            }
+            return node.read(input);
+        }
+    }
+
+    private Object updateObject(Object objectOwner, ObjectNode object) throws Exception {
+        skipComments();
+        if (peek() == Render.START_OBJECT) {
+            consume();
+        }
+
+        Set<String> seen = new HashSet<>();
+
         while (next()) {
-            char c = consume();
-            if (!lineBreaks && isLineBreak(c)) {
-                drained = false;
-                return;
+            skipSpace(true);
+
+            if (peek() == Render.END_OBJECT) {
+                consume();
+                break;
             }
-            if (!Character.isWhitespace(c)) {
-                drained = false;
-                return;
+
+            skipComments();
+
+            CharSequence key = nextToken(true);
+            Node child = object.getChild(key);
+
+            if (child.isPresent()) {
+                String name = key.toString();
+                seen.add(name);
+                path.add(name);
+                if (child.isObject()) {
+                    Object owner = child.get(objectOwner);
+                    if (owner == null) {
+                        // a new object is reported as a single change rather than one per field
+                        int mark = changes.size();
+                        owner = child.newInstance();
+                        update(owner, child);
+                        child.set(objectOwner, owner);
+                        changes.subList(mark, changes.size()).clear();
+                        changed();
+                    } else {
+                        update(owner, child);
+                    }
+                } else {
+                    Object value = update(objectOwner, child);
+                    if (child.isLazy()) {
+                        // lazy sections are replaced unless their text is unchanged
+                        if (!((Lazy<?>) value).isSameSource(child.get(objectOwner))) {
+                            child.set(objectOwner, value);
+                            changed();
+                        }
+                    } else if (child.isValue() && value != null && !value.equals(child.get(objectOwner))) {
+                        child.set(objectOwner, value);
+                        changed();
+                    }
+                }
+                path.remove(path.size() - 1);
+            } else {
+                // skip the value of a key that has no field, including any object or list it opens
+                unknownKeys++;
+                CfgReader.skipValue(this);
             }
         }
-    }
 
-    private void skipComments() throws IOException {
-        skipSpace(true);
-        while (peek() == Render.COMMENT) {
-            while (next()) {
-                char c = consume();
-                if (isLineBreak(c)) {
-                    skipComments();
-                    return;
+        // fields missing from the input get the values a fresh read would give them
+        if (seen.size() < object.getKeys().size()) {
+            Object defaults = object.newInstance();
+            for (Object next : object.getKeys()) {
+                String name = (String) next;
+                if (!seen.contains(name)) {
+                    path.add(name);
+                    reset(objectOwner, defaults, object.getChild(name));
+                    path.remove(path.size() - 1);
                 }
             }
         }
+
+        return objectOwner;
     }
 
-    private String nextString(boolean key) throws IOException {
-        char peek = peek();
-        if (peek == Render.ESCAPE || peek == Render.QUOTE) {
-            consume();
-            return nextQuotedString(peek);
+    /**
+     * Gives the owner's field the value it has in the defaults instance, recording a change where they differ.
+     * Objects are reset field by field so that only the values that actually differ are reported
+     */
+    @SuppressWarnings("unchecked")
+    private void reset(Object owner, Object defaults, Node child) throws Exception {
+        Object current = child.get(owner);
+        Object value = child.get(defaults);
+
+        if (child.isObject() && current != null && value != null) {
+            ObjectNode object = child.asObject();
+            for (Object next : object.getKeys()) {
+                String name = (String) next;
+                path.add(name);
+                reset(current, value, object.getChild(name));
+                path.remove(path.size() - 1);
+            }
+            return;
+        }
+
+        if (Objects.equals(current, value)) {
+            return;
+        }
+
+        // collections are refilled so that final fields can be reset too
+        if (child.isMap() && current != null && value != null) {
+            ((Map) current).clear();
+            ((Map) current).putAll((Map) value);
+        } else if (child.isList() && current != null && value != null) {
+            ((List) current).clear();
+            ((List) current).addAll((List) value);
+        } else {
+            child.set(owner, value);
         }
-        return nextRawString(key);
+        changed();
     }
 
-    private String nextRawString(boolean key) throws IOException {
-        int pos = 0;
+    @SuppressWarnings("unchecked")
+    private Map updateMap(Object mapOwner, MapNode map) throws Exception {
+        skipSpace(false);
+        if (peek() == Render.START_OBJECT) {
+            consume();
+        }
+
+        Map instance = map.getMap(mapOwner);
+        Set<Object> seen = new HashSet<>();
+
+        Node keyElement = map.getKeyTemplate();
+        Node valueElement = map.getValueTemplate();
+
         while (next()) {
-            char c = consume();
-            if ((key && c == Render.ASSIGN) || isLineBreak(c)) {
+            skipSpace(true);
+
+            if (peek() == Render.END_OBJECT) {
+                consume();
                 break;
             }
-            buffer[pos++] = c;
+
+            Object key = parse(map.newKeyInstance(), keyElement, true);
+            if (peek() == Render.ASSIGN) {
+                consume();
+            }
+
+            seen.add(key);
+            path.add(key);
+
+            // objects already in the map are updated in place, anything else is replaced if it differs
+            Object current = instance.get(key);
+            if (current != null && valueElement.isObject()) {
+                update(current, valueElement);
+            } else {
+                Object value = update(map.newValueInstance(), valueElement);
+                if (current == null || !current.equals(value)) {
+                    instance.put(key, value);
+                    changed();
+                }
+            }
+
+            path.remove(path.size() - 1);
+        }
+
+        Iterator<Object> keys = instance.keySet().iterator();
+        while (keys.hasNext()) {
+            Object key = keys.next();
+            if (!seen.contains(key)) {
+                keys.remove();
+                path.add(key);
+                changed();
+                path.remove(path.size() - 1);
+            }
         }
-        return new String(buffer, 0, pos);
+
+        return instance;
     }
 
-    private String nextQuotedString(char end) throws IOException {
-        int pos = 0;
+    @SuppressWarnings("unchecked")
+    private List updateList(Object owner, ListNode list) throws Exception {
+        skipSpace(false);
+        if (peek() == Render.START_LIST) {
+            consume();
+        }
+
+        List instance = list.getList(owner);
+        ListIterator<Object> iterator = instance.listIterator();
+
+        Node node = list.getValueTemplate();
+        int index = 0;
         while (next()) {
-            if (consume() == end) {
+            skipSpace(true);
+
+            if (peek() == Render.END_LIST) {
+                consume();
                 break;
             }
-            buffer[pos++] = c;
+
+            path.add(index++);
+
+            // elements are matched by position
+            boolean exists = iterator.hasNext();
+            Object current = exists ? iterator.next() : null;
+            if (current != null && node.isObject()) {
+                update(current, node);
+            } else {
+                Object value = update(list.newValueInstance(), node);
+                if (!exists) {
+                    iterator.add(value);
+                    changed();
+                } else if (!Objects.equals(current, value)) {
+                    iterator.set(value);
+                    changed();
+                }
+            }
+
+            path.remove(path.size() - 1);
+        }
+
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            path.add(index++);
+            changed();
+            path.remove(path.size() - 1);
         }
-        return new String(buffer, 0, pos);
-    }
 
-    private boolean isLineBreak(char c) {
-        return c == Render.NEWLINE || c == Render.LINE_SEPARATOR;
+        return instance;
     }
 
-    @Override
-    public void close() throws IOException {
-        reader.close();
+    private void changed() {
+        StringBuilder builder = new StringBuilder();
+        for (Object name : path) {
+            if (builder.length() > 0) {
+                builder.append('.');
+            }
+            builder.append(name);
+        }
+        changes.add(builder.toString());
     }
 }
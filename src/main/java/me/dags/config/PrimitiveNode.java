@@ -0,0 +1,330 @@
+package me.dags.config;
+
+import me.dags.config.style.Style;
+
+import java.io.IOException;
+
+/**
+ * A ValueNode for fields of a primitive type. Values are parsed straight from the parser's buffer and moved in and
+ * out of the field through the Accessor's primitive handles, so reading & writing them does not box
+ *
+ * @author dags <dags@dags.me>
+ */
+abstract class PrimitiveNode extends ValueNode {
+
+    final Accessor field;
+    final boolean hasDefault;
+
+    private PrimitiveNode(Accessor field, String defaultValue) {
+        super(field, Codecs.get(field.getType()), defaultValue);
+        this.field = field;
+        this.hasDefault = defaultValue != null;
+    }
+
+    /**
+     * Parses the input and assigns it to the owner's field
+     */
+    abstract void read(Object owner, CharSequence input) throws IllegalAccessException;
+
+    /**
+     * Parses the input and assigns it to the owner's field if it differs from the current value. Returns true if
+     * the field was changed
+     */
+    abstract boolean update(Object owner, CharSequence input) throws IllegalAccessException;
+
+    abstract void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException;
+
+    abstract boolean isDefault(Object owner) throws IllegalAccessException;
+
+    @Override
+    public void write(Appendable appendable, Object owner, Style style, int level, boolean key) throws IOException, IllegalAccessException {
+        write(appendable, owner);
+    }
+
+    @Override
+    public boolean isEmpty(Object owner) throws IllegalAccessException {
+        return owner == null || hasDefault && isDefault(owner);
+    }
+
+    @Override
+    boolean isPrimitive() {
+        return true;
+    }
+
+    static boolean isSupported(Class<?> type) {
+        return type.isPrimitive() && type != char.class && type != void.class;
+    }
+
+    static PrimitiveNode of(Accessor field, String defaultValue) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new IntNode(field, defaultValue);
+        }
+        if (type == long.class) {
+            return new LongNode(field, defaultValue);
+        }
+        if (type == double.class) {
+            return new DoubleNode(field, defaultValue);
+        }
+        if (type == float.class) {
+            return new FloatNode(field, defaultValue);
+        }
+        if (type == boolean.class) {
+            return new BooleanNode(field, defaultValue);
+        }
+        if (type == short.class) {
+            return new ShortNode(field, defaultValue);
+        }
+        if (type == byte.class) {
+            return new ByteNode(field, defaultValue);
+        }
+        throw new IllegalArgumentException("Unsupported primitive type " + type);
+    }
+
+    private static class IntNode extends PrimitiveNode {
+
+        private final int defaultValue;
+
+        private IntNode(Accessor field, String defaultValue) {
+            super(field, defaultValue);
+            this.defaultValue = hasDefault ? Numbers.parseInt(defaultValue) : 0;
+        }
+
+        @Override
+        void read(Object owner, CharSequence input) throws IllegalAccessException {
+            field.setInt(owner, Numbers.parseInt(input));
+        }
+
+        @Override
+        boolean update(Object owner, CharSequence input) throws IllegalAccessException {
+            int value = Numbers.parseInt(input);
+            if (value != field.getInt(owner)) {
+                field.setInt(owner, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException {
+            Numbers.append(appendable, field.getInt(owner));
+        }
+
+        @Override
+        boolean isDefault(Object owner) throws IllegalAccessException {
+            return field.getInt(owner) == defaultValue;
+        }
+    }
+
+    private static class LongNode extends PrimitiveNode {
+
+        private final long defaultValue;
+
+        private LongNode(Accessor field, String defaultValue) {
+            super(field, defaultValue);
+            this.defaultValue = hasDefault ? Numbers.parseLong(defaultValue) : 0L;
+        }
+
+        @Override
+        void read(Object owner, CharSequence input) throws IllegalAccessException {
+            field.setLong(owner, Numbers.parseLong(input));
+        }
+
+        @Override
+        boolean update(Object owner, CharSequence input) throws IllegalAccessException {
+            long value = Numbers.parseLong(input);
+            if (value != field.getLong(owner)) {
+                field.setLong(owner, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException {
+            Numbers.append(appendable, field.getLong(owner));
+        }
+
+        @Override
+        boolean isDefault(Object owner) throws IllegalAccessException {
+            return field.getLong(owner) == defaultValue;
+        }
+    }
+
+    private static class DoubleNode extends PrimitiveNode {
+
+        private final long defaultBits;
+
+        private DoubleNode(Accessor field, String defaultValue) {
+            super(field, defaultValue);
+            this.defaultBits = hasDefault ? Double.doubleToLongBits(Numbers.parseDouble(defaultValue)) : 0L;
+        }
+
+        @Override
+        void read(Object owner, CharSequence input) throws IllegalAccessException {
+            field.setDouble(owner, Numbers.parseDouble(input));
+        }
+
+        @Override
+        boolean update(Object owner, CharSequence input) throws IllegalAccessException {
+            double value = Numbers.parseDouble(input);
+            if (Double.doubleToLongBits(value) != Double.doubleToLongBits(field.getDouble(owner))) {
+                field.setDouble(owner, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException {
+            Numbers.append(appendable, field.getDouble(owner));
+        }
+
+        @Override
+        boolean isDefault(Object owner) throws IllegalAccessException {
+            // matches Double.equals
+            return Double.doubleToLongBits(field.getDouble(owner)) == defaultBits;
+        }
+    }
+
+    private static class FloatNode extends PrimitiveNode {
+
+        private final int defaultBits;
+
+        private FloatNode(Accessor field, String defaultValue) {
+            super(field, defaultValue);
+            this.defaultBits = hasDefault ? Float.floatToIntBits(Numbers.parseFloat(defaultValue)) : 0;
+        }
+
+        @Override
+        void read(Object owner, CharSequence input) throws IllegalAccessException {
+            field.setFloat(owner, Numbers.parseFloat(input));
+        }
+
+        @Override
+        boolean update(Object owner, CharSequence input) throws IllegalAccessException {
+            float value = Numbers.parseFloat(input);
+            if (Float.floatToIntBits(value) != Float.floatToIntBits(field.getFloat(owner))) {
+                field.setFloat(owner, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException {
+            Numbers.append(appendable, field.getFloat(owner));
+        }
+
+        @Override
+        boolean isDefault(Object owner) throws IllegalAccessException {
+            // matches Float.equals
+            return Float.floatToIntBits(field.getFloat(owner)) == defaultBits;
+        }
+    }
+
+    private static class BooleanNode extends PrimitiveNode {
+
+        private final boolean defaultValue;
+
+        private BooleanNode(Accessor field, String defaultValue) {
+            super(field, defaultValue);
+            this.defaultValue = hasDefault && Numbers.parseBoolean(defaultValue);
+        }
+
+        @Override
+        void read(Object owner, CharSequence input) throws IllegalAccessException {
+            field.setBoolean(owner, Numbers.parseBoolean(input));
+        }
+
+        @Override
+        boolean update(Object owner, CharSequence input) throws IllegalAccessException {
+            boolean value = Numbers.parseBoolean(input);
+            if (value != field.getBoolean(owner)) {
+                field.setBoolean(owner, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException {
+            Numbers.append(appendable, field.getBoolean(owner));
+        }
+
+        @Override
+        boolean isDefault(Object owner) throws IllegalAccessException {
+            return field.getBoolean(owner) == defaultValue;
+        }
+    }
+
+    private static class ShortNode extends PrimitiveNode {
+
+        private final short defaultValue;
+
+        private ShortNode(Accessor field, String defaultValue) {
+            super(field, defaultValue);
+            this.defaultValue = hasDefault ? Numbers.parseShort(defaultValue) : 0;
+        }
+
+        @Override
+        void read(Object owner, CharSequence input) throws IllegalAccessException {
+            field.setShort(owner, Numbers.parseShort(input));
+        }
+
+        @Override
+        boolean update(Object owner, CharSequence input) throws IllegalAccessException {
+            short value = Numbers.parseShort(input);
+            if (value != field.getShort(owner)) {
+                field.setShort(owner, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException {
+            Numbers.append(appendable, field.getShort(owner));
+        }
+
+        @Override
+        boolean isDefault(Object owner) throws IllegalAccessException {
+            return field.getShort(owner) == defaultValue;
+        }
+    }
+
+    private static class ByteNode extends PrimitiveNode {
+
+        private final byte defaultValue;
+
+        private ByteNode(Accessor field, String defaultValue) {
+            super(field, defaultValue);
+            this.defaultValue = hasDefault ? Numbers.parseByte(defaultValue) : 0;
+        }
+
+        @Override
+        void read(Object owner, CharSequence input) throws IllegalAccessException {
+            field.setByte(owner, Numbers.parseByte(input));
+        }
+
+        @Override
+        boolean update(Object owner, CharSequence input) throws IllegalAccessException {
+            byte value = Numbers.parseByte(input);
+            if (value != field.getByte(owner)) {
+                field.setByte(owner, value);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        void write(Appendable appendable, Object owner) throws IOException, IllegalAccessException {
+            Numbers.append(appendable, field.getByte(owner));
+        }
+
+        @Override
+        boolean isDefault(Object owner) throws IllegalAccessException {
+            return field.getByte(owner) == defaultValue;
+        }
+    }
+}
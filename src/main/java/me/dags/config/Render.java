@@ -4,6 +4,7 @@ import me.dags.config.style.Comment;
 import me.dags.config.style.Style;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * @author dags <dags@dags.me>
@@ -23,6 +24,10 @@ final class Render {
 
     static final char PAD = ' ';
 
+    // indents, padding & line breaks are appended as slices of these rather than a char at a time
+    private static final String SPACES = repeat(' ', 64);
+    private static final String NEWLINES = repeat(NEWLINE, 16);
+
     private Render() {}
 
     static void lineEnd(Appendable appendable) throws IOException {
@@ -55,18 +60,38 @@ final class Render {
         assign(appendable, style);
     }
 
-    static void indents(Appendable appendable, Style style, int level) throws IOException {
-        while (level-- > 0) {
-            repeat(appendable, style.indent(), PAD);
+    /**
+     * Appends a key that has been pre-rendered along with its assign char, followed by the style's padding
+     */
+    static void prefix(Appendable appendable, String prefix, Style style) throws IOException {
+        appendable.append(prefix);
+        pad(appendable, style);
+    }
+
+    /**
+     * Appends a String value, boxing it in escape or quote chars if it could not otherwise be parsed back
+     */
+    static void value(Appendable appendable, String value, boolean key) throws IOException {
+        char box = MapNode.getBox(value, key);
+        if (box == (char) -1) {
+            appendable.append(value);
+        } else {
+            appendable.append(box);
+            appendable.append(value);
+            appendable.append(box);
         }
     }
 
+    static void indents(Appendable appendable, Style style, int level) throws IOException {
+        repeat(appendable, style.indent() * level, SPACES);
+    }
+
     static void pad(Appendable appendable, Style style) throws IOException {
-        repeat(appendable, style.pad(), PAD);
+        repeat(appendable, style.pad(), SPACES);
     }
 
     static void lineBreaks(Appendable appendable, Style style) throws IOException {
-        repeat(appendable, style.breaks(), NEWLINE);
+        repeat(appendable, style.breaks(), NEWLINES);
     }
 
     static boolean header(Appendable appendable, Comment header, Style style, int level, boolean root) throws IOException {
@@ -95,9 +120,17 @@ final class Render {
         return false;
     }
 
-    private static void repeat(Appendable appendable, int count, char c) throws IOException {
-        while (count-- > 0) {
-            appendable.append(c);
+    private static void repeat(Appendable appendable, int count, String run) throws IOException {
+        while (count > 0) {
+            int length = Math.min(count, run.length());
+            appendable.append(run, 0, length);
+            count -= length;
         }
     }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
 }
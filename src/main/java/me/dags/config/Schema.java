@@ -0,0 +1,243 @@
+package me.dags.config;
+
+import me.dags.config.style.Comment;
+import me.dags.config.style.Default;
+import me.dags.config.style.Order;
+import me.dags.config.style.Style;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Describes the node tree of a class explicitly rather than by reflecting on its fields.
+ * Used by the Mappers that the cfg-processor generates for classes marked with {@link Generate}
+ *
+ * @author dags <dags@dags.me>
+ */
+public final class Schema {
+
+    private Schema() {
+
+    }
+
+    public static <T> Builder<T> object(Class<T> type, Supplier<T> factory) {
+        return new Builder<>(type, factory);
+    }
+
+    public static Style style(int breaks, int pad, int indent, boolean comments, boolean override, boolean ignoreEmpty) {
+        return new Style() {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Style.class;
+            }
+
+            @Override
+            public int breaks() {
+                return breaks;
+            }
+
+            @Override
+            public int pad() {
+                return pad;
+            }
+
+            @Override
+            public int indent() {
+                return indent;
+            }
+
+            @Override
+            public boolean comments() {
+                return comments;
+            }
+
+            @Override
+            public boolean override() {
+                return override;
+            }
+
+            @Override
+            public boolean ignoreEmpty() {
+                return ignoreEmpty;
+            }
+        };
+    }
+
+    private static Comment comment(String[] lines) {
+        return new Comment() {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Comment.class;
+            }
+
+            @Override
+            public String[] value() {
+                return lines;
+            }
+        };
+    }
+
+    private static Order order(String[] names) {
+        return new Order() {
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return Order.class;
+            }
+
+            @Override
+            public String[] value() {
+                return names;
+            }
+        };
+    }
+
+    public static final class Builder<T> {
+
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<String, Comment> comments = new HashMap<>();
+        private final Class<T> type;
+        private final Supplier<T> factory;
+        private Style style = null;
+        private Order order = null;
+        private Comment header = null;
+
+        private Builder(Class<T> type, Supplier<T> factory) {
+            this.type = type;
+            this.factory = factory;
+        }
+
+        public Builder<T> style(Style style) {
+            this.style = style;
+            return this;
+        }
+
+        public Builder<T> order(String... names) {
+            this.order = Schema.order(names);
+            return this;
+        }
+
+        public Builder<T> header(String... lines) {
+            this.header = Schema.comment(lines);
+            return this;
+        }
+
+        public Builder<T> comment(String name, String... lines) {
+            comments.put(name, Schema.comment(lines));
+            return this;
+        }
+
+        public <V> Builder<T> value(String name, Class<V> type, String def, Function<T, V> getter, BiConsumer<T, V> setter) {
+            if (PrimitiveNode.isSupported(type)) {
+                entries.add(new Entry(name, field -> PrimitiveNode.of(field, def), type, getter, setter));
+            } else {
+                entries.add(new Entry(name, field -> new ValueNode(field, Codecs.get(type), def), type, getter, setter));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a field holding a nested object. If a codec has been registered for the object's type by the time
+         * the Mapper is built, the field is mapped as a value instead, as the reflective Mapper would map it
+         */
+        public <V> Builder<T> object(String name, Builder<V> object, Function<T, V> getter, BiConsumer<T, V> setter) {
+            entries.add(new Entry(name, field -> {
+                if (Codecs.contains(object.type)) {
+                    return new ValueNode(field, Codecs.get(object.type), getDefault(name));
+                }
+                return object.build(field);
+            }, object.type, getter, setter));
+            return this;
+        }
+
+        public <V extends Map<?, ?>> Builder<T> map(String name, Mapper<?> key, Mapper<?> value, Supplier<? extends V> factory, Function<T, V> getter, BiConsumer<T, V> setter) {
+            Node keyTemplate = (Node) key;
+            Node valueTemplate = (Node) value;
+            entries.add(new Entry(name, field -> new MapNode(field, keyTemplate, valueTemplate, factory::get), Map.class, getter, setter));
+            return this;
+        }
+
+        public <V extends List<?>> Builder<T> list(String name, Mapper<?> value, Supplier<? extends V> factory, Function<T, V> getter, BiConsumer<T, V> setter) {
+            Node valueTemplate = (Node) value;
+            entries.add(new Entry(name, field -> new ListNode(field, valueTemplate, factory::get), List.class, getter, setter));
+            return this;
+        }
+
+        public <V> Builder<T> lazy(String name, Mapper<V> value, Function<T, Lazy<V>> getter, BiConsumer<T, Lazy<V>> setter) {
+            Node valueTemplate = (Node) value;
+            entries.add(new Entry(name, field -> new LazyNode(field, valueTemplate), Lazy.class, getter, setter));
+            return this;
+        }
+
+        /**
+         * Builds the Mapper, or returns the reflective one where a codec has been registered for the type so that
+         * it is mapped as a value
+         */
+        public Mapper<T> build() {
+            if (Codecs.contains(type)) {
+                return Mapper.of(type);
+            }
+            return build(null);
+        }
+
+        private Node<T> build(Accessor field) {
+            ObjectNode.Builder<T> builder = ObjectNode.builder(type, field);
+
+            if (factory != null) {
+                builder.factory(factory::get);
+            }
+
+            if (style != null) {
+                builder.style(style);
+            }
+
+            if (order != null) {
+                builder.order(order);
+            }
+
+            if (header != null) {
+                builder.header(header);
+            }
+
+            for (Entry entry : entries) {
+                builder.field(entry.name, entry.node.apply(entry.accessor));
+                if (comments.containsKey(entry.name)) {
+                    builder.comment(entry.name, comments.get(entry.name));
+                }
+            }
+
+            return builder.build();
+        }
+
+        /**
+         * Reads the @Default of a field found to be a value at runtime, as the processor only records the defaults
+         * of the types it knows to be values
+         */
+        private String getDefault(String name) {
+            try {
+                Default def = type.getDeclaredField(name).getAnnotation(Default.class);
+                return def == null ? null : def.value();
+            } catch (NoSuchFieldException e) {
+                return null;
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final String name;
+        private final Accessor accessor;
+        private final Function<Accessor, Node> node;
+
+        private Entry(String name, Function<Accessor, Node> node, Class<?> type, Function<?, ?> getter, BiConsumer<?, ?> setter) {
+            this.name = name;
+            this.node = node;
+            this.accessor = Accessor.of(type, getter, setter);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package me.dags.config;
+
+/**
+ * A reusable view over a region of a char buffer. The content is only valid until the owner of the buffer
+ * moves on to the next token, so callers that need to retain it must call toString()
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Slice implements CharSequence {
+
+    private char[] buffer;
+    private int offset;
+    private int length;
+
+    Slice() {
+        this(new char[0], 0, 0);
+    }
+
+    Slice(char[] buffer, int offset, int length) {
+        set(buffer, offset, length);
+    }
+
+    Slice set(char[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    char[] buffer() {
+        return buffer;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return buffer[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new Slice(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, offset, length);
+    }
+}
@@ -0,0 +1,605 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary copy of a value read from a cfg file, stored next to it so that later reads can skip the text parser.
+ * Values are written in the order of the node tree with no keys, strings are length-prefixed UTF-8, integers are
+ * varints and floating point values are written raw. The header records the source's path, size and modified time
+ * along with a fingerprint of the node tree and its codecs; if any of them no longer match, the snapshot is ignored
+ * and replaced
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Snapshot {
+
+    private static final int MAGIC = 0x43464753;
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".snapshot";
+
+    // sources modified this recently may change again within the file system's timestamp granularity
+    private static final long RACY_WINDOW = 2000;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte SHORT = 8;
+    private static final byte BYTE = 9;
+    private static final byte CHAR = 10;
+    // any other type is stored as its text form and parsed by the node on the way back in
+    private static final byte TEXT = 11;
+
+    private Snapshot() {
+
+    }
+
+    /**
+     * Reads the source by way of its snapshot if it has a valid one, otherwise parses the text and stores a new
+     * snapshot for next time
+     */
+    static <T> T read(Node<T> node, Path source) throws Exception {
+        Path path = source.toAbsolutePath().normalize();
+        Path file = path.resolveSibling("." + path.getFileName() + SUFFIX);
+        MapperListener listener = Listeners.get();
+        long start = Listeners.isActive(listener) ? System.nanoTime() : 0L;
+
+        // the key is taken before the source is read so that an edit made during the read invalidates the snapshot
+        Key key;
+        T value;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            key = new Key(path.toString(), attributes.size(), attributes.lastModifiedTime().toMillis(), fingerprint(node));
+            value = load(node, file, key);
+        } catch (Exception e) {
+            Listeners.onRead(listener, node, "readCached", start, null, e);
+            throw e;
+        }
+
+        if (value != null) {
+            // no text is read, so no chars or nodes are counted
+            Listeners.onRead(listener, node, "readCached", start, null, null);
+            return value;
+        }
+
+        // a miss is reported by the read itself
+        value = node.read(path);
+        if (System.currentTimeMillis() - key.modified > RACY_WINDOW) {
+            try {
+                save(node, value, file, key);
+            } catch (Exception e) {
+                Listeners.get().onError(Listeners.getType(node), "readCached", e);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value held in the snapshot, or null if it is missing, out of date or unreadable
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T load(Node<T> node, Path file, Key key) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                Decoder decoder = new Decoder(buffer);
+                if (decoder.buffer.getInt() != MAGIC || decoder.buffer.getInt() != VERSION || !key.equals(Key.read(decoder))) {
+                    return null;
+                }
+
+                if (node.isValue()) {
+                    return (T) decoder.readValue(node.asValue());
+                }
+
+                T owner = node.newInstance();
+                decoder.readNode(node, owner);
+                return owner;
+            } finally {
+                // everything read has been copied out, and a mapping left open would stop the snapshot being
+                // replaced on Windows
+                FileUtils.unmap(buffer);
+            }
+        } catch (Exception e) {
+            // a truncated or corrupt snapshot is simply replaced
+            return null;
+        }
+    }
+
+    private static <T> void save(Node<T> node, T value, Path file, Key key) throws Exception {
+        Path target = FileUtils.target(file);
+        Path temp = FileUtils.createTemp(target);
+        try {
+            try (Encoder encoder = new Encoder(Files.newOutputStream(temp))) {
+                encoder.writeInt(MAGIC);
+                encoder.writeInt(VERSION);
+                key.write(encoder);
+                if (node.isValue()) {
+                    encoder.writeValue(node.asValue(), value);
+                } else {
+                    encoder.writeNode(node, value);
+                }
+            }
+            FileUtils.replace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of a description of the node tree: the field names in order, the kind and type of each
+     * node and the codec of each value. Any change to the mapped classes that alters their layout, or a codec
+     * registered for one of their value types, alters the fingerprint
+     */
+    static long fingerprint(Node<?> node) {
+        StringBuilder builder = new StringBuilder();
+        describe(node, builder, new IdentityHashMap<>());
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < builder.length(); i++) {
+            hash ^= builder.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static void describe(Node<?> node, StringBuilder builder, Map<Node<?>, Integer> visited) {
+        Integer index = visited.get(node);
+        if (index != null) {
+            // a recursive type refers back to its earlier description
+            builder.append('^').append(index);
+            return;
+        }
+        visited.put(node, visited.size());
+
+        if (node.isLazy()) {
+            builder.append("Z(");
+            describe(((LazyNode) node).getTemplate(), builder, visited);
+        } else if (node.isObject()) {
+            ObjectNode<?> object = node.asObject();
+            builder.append("O(").append(object.getType() == null ? "" : object.getType().getName());
+            for (String name : object.getKeys()) {
+                Node<?> child = object.getChild(name);
+                if (child.isPresent()) {
+                    builder.append(';').append(name).append('=');
+                    describe(child, builder, visited);
+                }
+            }
+        } else if (node.isMap()) {
+            builder.append("M(");
+            describe(node.asMap().getKeyTemplate(), builder, visited);
+            builder.append(',');
+            describe(node.asMap().getValueTemplate(), builder, visited);
+        } else if (node.isList()) {
+            builder.append("L(");
+            describe(node.asList().getValueTemplate(), builder, visited);
+        } else {
+            Class<?> type = node.asValue().getType();
+            String codec = Codecs.getId(node.asValue().getCodec());
+            builder.append("V(").append(type == null ? "" : type.getName());
+            if (!codec.isEmpty()) {
+                builder.append('/').append(codec);
+            }
+        }
+        builder.append(')');
+    }
+
+    private static class Key {
+
+        private final String path;
+        private final long size;
+        private final long modified;
+        private final long fingerprint;
+
+        private Key(String path, long size, long modified, long fingerprint) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.fingerprint = fingerprint;
+        }
+
+        private void write(Encoder encoder) throws IOException {
+            encoder.writeString(path);
+            encoder.writeLong(size);
+            encoder.writeLong(modified);
+            encoder.writeLong(fingerprint);
+        }
+
+        private static Key read(Decoder decoder) {
+            return new Key(decoder.readString(), decoder.buffer.getLong(), decoder.buffer.getLong(), decoder.buffer.getLong());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return size == key.size && modified == key.modified && fingerprint == key.fingerprint && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode();
+        }
+    }
+
+    private static class Encoder implements AutoCloseable {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[65536];
+        private int length = 0;
+
+        private Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes the node's value as held by the owner, in the same way that Node.write renders it
+         */
+        @SuppressWarnings("unchecked")
+        private void writeNode(Node node, Object owner) throws Exception {
+            if (node.isLazy()) {
+                Lazy<?> lazy = (Lazy<?>) node.get(owner);
+                if (lazy == null) {
+                    writeByte(NULL);
+                } else if (lazy.isLoaded() && lazy.get() != null) {
+                    StringWriter writer = new StringWriter();
+                    ((LazyNode) node).getTemplate().write(lazy.get(), writer);
+                    writeByte(STRING);
+                    writeString(writer.toString());
+                } else {
+                    writeByte(STRING);
+                    writeString(lazy.getSource());
+                }
+            } else if (node.isObject()) {
+                ObjectNode<?> object = node.asObject();
+                Object instance = object.getInstance(owner);
+                if (instance == null) {
+                    writeByte(NULL);
+                    return;
+                }
+
+                writeByte(TRUE);
+                for (String name : object.getKeys()) {
+                    Node child = object.getChild(name);
+                    if (child.isPresent()) {
+                        writeNode(child, instance);
+                    }
+                }
+            } else if (node.isMap()) {
+                Map<?, ?> map = (Map<?, ?>) node.get(owner);
+                if (map == null) {
+                    writeVarInt(0);
+                    return;
+                }
+
+                ValueNode keys = node.asMap().getKeyTemplate().asValue();
+                Node values = node.asMap().getValueTemplate();
+                writeVarInt(map.size() + 1);
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(keys, entry.getKey());
+                    writeElement(values, entry.getValue());
+                }
+            } else if (node.isList()) {
+                List<?> list = (List<?>) node.get(owner);
+                if (list == null) {
+                    writeVarInt(0);
+                    return;
+                }
+
+                Node values = node.asList().getValueTemplate();
+                writeVarInt(list.size() + 1);
+                for (Object element : list) {
+                    writeElement(values, element);
+                }
+            } else {
+                writeValue(node.asValue(), node.get(owner));
+            }
+        }
+
+        /**
+         * Writes an element of a map or list, which is either a value or an object that the template maps directly
+         */
+        private void writeElement(Node template, Object value) throws Exception {
+            if (template.isValue()) {
+                writeValue(template.asValue(), value);
+            } else if (template.isObject()) {
+                writeNode(template, value);
+            } else {
+                throw new UnsupportedOperationException("Cannot encode nested collections");
+            }
+        }
+
+        private void writeValue(ValueNode node, Object value) throws IOException {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                writeByte(INT);
+                writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Double) {
+                writeByte(DOUBLE);
+                writeLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Float) {
+                writeByte(FLOAT);
+                writeInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Short) {
+                writeByte(SHORT);
+                writeVarLong(zigZag((Short) value));
+            } else if (value instanceof Byte) {
+                writeByte(BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Character) {
+                writeByte(CHAR);
+                writeVarInt((Character) value);
+            } else {
+                writeByte(TEXT);
+                writeString(node.format(value));
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            if (bytes.length > buffer.length - length) {
+                drain();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private void writeInt(int value) throws IOException {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeLong(long value) throws IOException {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeByte(int value) throws IOException {
+            ensure(1);
+            buffer[length++] = (byte) value;
+        }
+
+        private void ensure(int count) throws IOException {
+            if (length + count > buffer.length) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                out.close();
+            }
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static class Decoder {
+
+        private final ByteBuffer buffer;
+        private byte[] bytes = new byte[256];
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads the node's value into the owner, mirroring Encoder.writeNode
+         */
+        @SuppressWarnings("unchecked")
+        private void readNode(Node node, Object owner) throws Exception {
+            if (node.isLazy()) {
+                Object value = buffer.get() == NULL ? null : ((LazyNode) node).read(readString());
+                node.set(owner, value);
+            } else if (node.isObject()) {
+                if (buffer.get() == NULL) {
+                    node.set(owner, null);
+                    return;
+                }
+
+                ObjectNode<?> object = node.asObject();
+                Object instance = object.getInstance(owner);
+                if (instance == null) {
+                    instance = object.newInstance();
+                    object.set(owner, instance);
+                }
+                readFields(object, instance);
+            } else if (node.isMap()) {
+                int size = readVarInt() - 1;
+                if (size < 0) {
+                    node.set(owner, null);
+                    return;
+                }
+
+                MapNode map = node.asMap();
+                Map instance = (Map) map.get(owner);
+                if (instance == null) {
+                    instance = (Map) map.newInstance();
+                    map.set(owner, instance);
+                }
+
+                instance.clear();
+                ValueNode keys = map.getKeyTemplate().asValue();
+                Node values = map.getValueTemplate();
+                for (int i = 0; i < size; i++) {
+                    Object key = readValue(keys);
+                    instance.put(key, readElement(values));
+                }
+            } else if (node.isList()) {
+                int size = readVarInt() - 1;
+                if (size < 0) {
+                    node.set(owner, null);
+                    return;
+                }
+
+                ListNode list = node.asList();
+                List instance = (List) list.get(owner);
+                if (instance == null) {
+                    instance = (List) list.newInstance();
+                    list.set(owner, instance);
+                }
+
+                instance.clear();
+                Node values = list.getValueTemplate();
+                for (int i = 0; i < size; i++) {
+                    instance.add(readElement(values));
+                }
+            } else {
+                Object value = readValue(node.asValue());
+                if (value != null || !node.asValue().isPrimitive()) {
+                    node.set(owner, value);
+                }
+            }
+        }
+
+        private void readFields(ObjectNode<?> object, Object instance) throws Exception {
+            for (String name : object.getKeys()) {
+                Node child = object.getChild(name);
+                if (child.isPresent()) {
+                    readNode(child, instance);
+                }
+            }
+        }
+
+        private Object readElement(Node template) throws Exception {
+            if (template.isValue()) {
+                return readValue(template.asValue());
+            }
+
+            if (buffer.get() == NULL) {
+                return null;
+            }
+
+            Object instance = template.newInstance();
+            readFields(template.asObject(), instance);
+            return instance;
+        }
+
+        private Object readValue(ValueNode node) {
+            byte tag = buffer.get();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case INT:
+                    return (int) unZigZag(readVarLong());
+                case LONG:
+                    return unZigZag(readVarLong());
+                case DOUBLE:
+                    return buffer.getDouble();
+                case FLOAT:
+                    return buffer.getFloat();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case SHORT:
+                    return (short) unZigZag(readVarLong());
+                case BYTE:
+                    return buffer.get();
+                case CHAR:
+                    return (char) readVarInt();
+                case TEXT:
+                    return node.read(readString());
+                default:
+                    throw new IllegalStateException("Unknown value tag " + tag);
+            }
+        }
+
+        private String readString() {
+            int length = readVarInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length << 1)];
+            }
+            buffer.get(bytes, 0, length);
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
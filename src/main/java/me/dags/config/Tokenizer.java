@@ -0,0 +1,252 @@
+package me.dags.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits cfg text into keys, values and structural chars. The source is read in large blocks and tokens are handed
+ * out as slices of the block wherever possible
+ *
+ * @author dags <dags@dags.me>
+ */
+class Tokenizer implements Closeable {
+
+    static final char EOF = (char) -1;
+
+    private static final int BUFFER_SIZE = 16384;
+    private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<>();
+
+    private final Reader reader;
+    private final Slice token = new Slice();
+
+    private char[] input;
+
+    private char[] buffer = new char[256];
+
+    private int pos = 0;
+    private int limit = 0;
+    private long chars = 0;
+
+    private StringBuilder capture = null;
+    private int mark = 0;
+
+    /**
+     * Creates a Tokenizer that reads from the Reader into a block buffer borrowed from a per-thread pool, so that
+     * reading many documents on one thread reuses the same buffer. The buffer is returned on close
+     */
+    Tokenizer(Reader reader) {
+        char[] input = BUFFERS.get();
+        if (input == null) {
+            input = new char[BUFFER_SIZE];
+        } else {
+            // a nested read on this thread will allocate its own buffer
+            BUFFERS.set(null);
+        }
+        this.reader = reader;
+        this.input = input;
+    }
+
+    /**
+     * Creates a Tokenizer over a region of text that is already in memory. Tokens are sliced straight out of the
+     * given array, which must not be modified while the Tokenizer is in use
+     */
+    Tokenizer(char[] chars, int offset, int length) {
+        this.reader = null;
+        this.input = chars;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.chars = length;
+    }
+
+    boolean next() throws IOException {
+        return pos < limit || fill();
+    }
+
+    private boolean fill() throws IOException {
+        if (reader == null) {
+            return false;
+        }
+
+        if (capture != null) {
+            // the rest of the block is recorded now, so nothing more is taken from it if the input has ended
+            capture.append(input, mark, limit - mark);
+            mark = limit;
+        }
+
+        int read;
+        do {
+            read = reader.read(input, 0, input.length);
+        } while (read == 0);
+
+        if (read == -1) {
+            return false;
+        }
+
+        pos = 0;
+        mark = 0;
+        limit = read;
+        chars += read;
+        return true;
+    }
+
+    /**
+     * The number of chars taken from the source so far
+     */
+    long chars() {
+        return chars;
+    }
+
+    /**
+     * The offset of the next char within the array given to the constructor. Only meaningful for Tokenizers that
+     * were created over text in memory
+     */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Starts recording the text that is consumed from here on
+     */
+    void startCapture() {
+        capture = new StringBuilder();
+        mark = pos;
+    }
+
+    /**
+     * Stops recording, returning the text consumed since startCapture()
+     */
+    String endCapture() {
+        capture.append(input, mark, pos - mark);
+        String text = capture.toString();
+        capture = null;
+        return text;
+    }
+
+    char consume() {
+        return input[pos++];
+    }
+
+    char peek() throws IOException {
+        return next() ? input[pos] : EOF;
+    }
+
+    void skipSpace(boolean lineBreaks) throws IOException {
+        while (next()) {
+            for (int i = pos, end = limit; i < end; i++) {
+                char c = input[i];
+                if ((!lineBreaks && Chars.isLineBreak(c)) || !Chars.isWhitespace(c)) {
+                    pos = i;
+                    return;
+                }
+            }
+            pos = limit;
+        }
+    }
+
+    void skipComments() throws IOException {
+        skipSpace(true);
+        while (peek() == Render.COMMENT) {
+            skipLine();
+            skipSpace(true);
+        }
+    }
+
+    void skipLine() throws IOException {
+        while (next()) {
+            int i = CharScanner.indexOf(input, pos, limit, Render.NEWLINE, Render.LINE_SEPARATOR);
+            if (i < limit) {
+                pos = i + 1;
+                return;
+            }
+            pos = limit;
+        }
+    }
+
+    /**
+     * Reads the next key or value. Tokens that lie within the current block are sliced straight out of the input
+     * buffer; only tokens that span a refill are copied, into a buffer that grows to fit them. The returned slice is
+     * only valid until the next token is read
+     */
+    CharSequence nextToken(boolean key) throws IOException {
+        char peek = peek();
+        if (peek == Render.ESCAPE || peek == Render.QUOTE) {
+            consume();
+            return nextQuotedString(peek);
+        }
+        return nextRawString(key);
+    }
+
+    private CharSequence nextRawString(boolean key) throws IOException {
+        // a value ends at the line break, a key at the assign char if it comes first
+        char stop = key ? Render.ASSIGN : Render.NEWLINE;
+        int length = 0;
+        while (next()) {
+            int start = pos;
+            int end = limit;
+            int i = CharScanner.indexOf(input, start, end, Render.NEWLINE, Render.LINE_SEPARATOR, stop);
+
+            if (i < end) {
+                pos = i + 1;
+                if (length == 0) {
+                    return token.set(input, start, i - start);
+                }
+                length = append(length, start, i - start);
+                return token.set(buffer, 0, length);
+            }
+
+            length = append(length, start, end - start);
+            pos = end;
+        }
+        return token.set(buffer, 0, length);
+    }
+
+    private CharSequence nextQuotedString(char quote) throws IOException {
+        int length = 0;
+        while (next()) {
+            int start = pos;
+            int end = limit;
+            int i = CharScanner.indexOf(input, start, end, quote);
+
+            if (i < end) {
+                pos = i + 1;
+                if (length == 0) {
+                    return token.set(input, start, i - start);
+                }
+                length = append(length, start, i - start);
+                return token.set(buffer, 0, length);
+            }
+
+            length = append(length, start, end - start);
+            pos = end;
+        }
+        return token.set(buffer, 0, length);
+    }
+
+    /**
+     * Copies part of the current block onto the end of the spill buffer, growing it as required
+     */
+    private int append(int length, int start, int count) {
+        int required = length + count;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+        System.arraycopy(input, start, buffer, length, count);
+        return required;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null && input != null) {
+            try {
+                reader.close();
+            } finally {
+                BUFFERS.set(input);
+                input = null;
+                pos = 0;
+                limit = 0;
+            }
+        }
+    }
+}
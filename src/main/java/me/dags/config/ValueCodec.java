@@ -0,0 +1,33 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Converts a type of value to and from its text in a document. Codecs are registered for a type with
+ * Mapper.registerCodec(..), which must happen before the first Mapper using the type is created
+ *
+ * @author dags <dags@dags.me>
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * Parses the text of a value. The input is a view onto the parser's buffer, so it is only valid for the
+     * duration of the call and must not be kept
+     */
+    T read(CharSequence input);
+
+    /**
+     * Appends the text of the value, which must not contain line breaks
+     */
+    default void write(Appendable appendable, T value) throws IOException {
+        appendable.append(value.toString());
+    }
+
+    /**
+     * Creates a codec from a function that parses the value from a String, writing values with toString()
+     */
+    static <T> ValueCodec<T> of(Function<String, T> parser) {
+        return input -> parser.apply(input.toString());
+    }
+}
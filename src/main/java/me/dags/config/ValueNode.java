@@ -4,7 +4,6 @@ import me.dags.config.style.Style;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
-import java.util.function.Function;
 
 /**
  * @author dags <dags@dags.me>
@@ -13,32 +12,59 @@ class ValueNode implements Node {
 
     static final ValueNode EMPTY = new ValueNode();
 
-    private final Field field;
+    private final Accessor field;
+    private final Class<?> type;
     private final Object defaultValue;
-    private final Function<String, ?> parser;
+    private final ValueCodec<Object> codec;
 
     private ValueNode() {
         this.field = null;
-        this.parser = null;
+        this.type = null;
+        this.codec = null;
         this.defaultValue = null;
     }
 
-    ValueNode(Field field, Function<String, ?> parser, String defaultValue) {
+    /**
+     * Creates a template for values that are not held in a field, such as the keys & values of maps
+     */
+    @SuppressWarnings("unchecked")
+    ValueNode(Class<?> type, ValueCodec<?> codec) {
+        this.field = null;
+        this.type = type;
+        this.codec = (ValueCodec<Object>) codec;
+        this.defaultValue = null;
+    }
+
+    ValueNode(Field field, ValueCodec<?> codec, String defaultValue) {
+        this(Accessor.of(field), codec, defaultValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    ValueNode(Accessor field, ValueCodec<?> codec, String defaultValue) {
         Object def = null;
-        if (parser != null && defaultValue != null) {
-            def = parser.apply(defaultValue);
+        if (codec != null && defaultValue != null) {
+            def = codec.read(defaultValue);
         }
 
         this.field = field;
-        this.parser = parser;
+        this.type = field != null ? field.getType() : null;
+        this.codec = (ValueCodec<Object>) codec;
         this.defaultValue = def;
     }
 
     @Override
     public void write(Appendable appendable, Object owner, Style style, int level, boolean key) throws IOException, IllegalAccessException {
         Object value = field == null ? owner : get(owner);
-        Object safe = key ? MapNode.getSafeKey(value) : MapNode.getSafeValue(value);
-        appendable.append(safe.toString());
+        if (value instanceof String) {
+            Render.value(appendable, (String) value, key);
+        } else if (codec == null) {
+            appendable.append(value.toString());
+        } else if (key) {
+            // keys may need boxing if the codec's text contains the assign char
+            Render.value(appendable, format(value), true);
+        } else {
+            codec.write(appendable, value);
+        }
     }
 
     @Override
@@ -85,7 +111,42 @@ class ValueNode implements Node {
         field.set(owner, value);
     }
 
-    Object parse(String input) {
-        return parser != null ? parser.apply(input) : null;
+    Class<?> getType() {
+        return type;
+    }
+
+    ValueCodec<?> getCodec() {
+        return codec;
+    }
+
+    /**
+     * Primitive nodes parse their input directly into the owning field rather than through parse(String)
+     */
+    boolean isPrimitive() {
+        return false;
+    }
+
+    /**
+     * Converts the text of a value, which may be a view onto the parser's buffer
+     */
+    Object read(CharSequence input) {
+        return codec != null ? codec.read(input) : null;
+    }
+
+    /**
+     * The text of a value as the codec writes it
+     */
+    String format(Object value) {
+        if (codec == null || value instanceof String) {
+            return value.toString();
+        }
+        StringBuilder builder = new StringBuilder();
+        try {
+            codec.write(builder, value);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
     }
 }
@@ -0,0 +1,279 @@
+package me.dags.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directories of all LiveConfigs on one file system from a single daemon thread. Events for a config
+ * push its reload deadline back by its debounce period; once the deadline passes the reload is handed to a shared
+ * background thread so that parsing never holds up the watcher.
+ *
+ * A directory that can no longer be watched (e.g. because it was deleted) is reported to the listener of each of its
+ * configs and checked for again every second; once it is back it is watched again and its configs reloaded. The
+ * watcher and its thread are stopped when the last LiveConfig on the file system is closed
+ *
+ * @author dags <dags@dags.me>
+ */
+final class Watcher implements Runnable {
+
+    private static final Map<FileSystem, Watcher> WATCHERS = new HashMap<>();
+    private static final ExecutorService RELOADER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "cfg-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final long RETRY = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+    private final Map<WatchKey, Directory> directories = new HashMap<>();
+    // directories whose keys have been invalidated, waiting to be watched again
+    private final Map<Path, Directory> lost = new HashMap<>();
+    // only accessed from the watcher thread
+    private final Map<LiveConfig<?>, Long> pending = new HashMap<>();
+    private final WatchService service;
+
+    private Watcher(WatchService service) {
+        this.service = service;
+    }
+
+    private synchronized void add(LiveConfig<?> config) throws IOException {
+        Path dir = config.getPath().getParent();
+        WatchKey key = keys.get(dir);
+        if (key == null) {
+            key = watch(dir);
+            keys.put(dir, key);
+            Directory directory = lost.remove(dir);
+            directories.put(key, directory == null ? new Directory() : directory);
+        }
+        directories.get(key).configs.add(config);
+    }
+
+    /**
+     * Removes the config, returning true if the watcher has nothing left to watch
+     */
+    private synchronized boolean remove(LiveConfig<?> config) {
+        Path dir = config.getPath().getParent();
+        WatchKey key = keys.get(dir);
+        Directory directory = key == null ? lost.get(dir) : directories.get(key);
+        if (directory != null) {
+            directory.configs.remove(config);
+            if (directory.configs.isEmpty()) {
+                if (key == null) {
+                    lost.remove(dir);
+                } else {
+                    key.cancel();
+                    keys.remove(dir);
+                    directories.remove(key);
+                }
+            }
+        }
+        return keys.isEmpty() && lost.isEmpty();
+    }
+
+    private WatchKey watch(Path dir) throws IOException {
+        return dir.register(
+                service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+        );
+    }
+
+    private void close() {
+        try {
+            service.close();
+        } catch (IOException e) {
+            // the thread stops either way
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                long timeout = getTimeout();
+                WatchKey key = timeout < 0 ? service.take() : service.poll(timeout, TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    process(key);
+                }
+                recover();
+                dispatch();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // watcher shut down
+        }
+    }
+
+    private void process(WatchKey key) {
+        long now = System.nanoTime();
+        List<LiveConfig<?>> changed = new ArrayList<>();
+        List<LiveConfig<?>> orphaned = new ArrayList<>();
+        Path dir = (Path) key.watchable();
+
+        synchronized (this) {
+            Directory directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (directory == null) {
+                    continue;
+                }
+
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed.addAll(directory.configs);
+                    continue;
+                }
+
+                Path name = (Path) event.context();
+                for (LiveConfig<?> config : directory.configs) {
+                    if (config.getPath().getFileName().equals(name)) {
+                        changed.add(config);
+                    }
+                }
+            }
+
+            if (!key.reset() && directory != null) {
+                // directory is gone, its configs keep their last snapshot until it is back
+                keys.remove(dir);
+                directories.remove(key);
+                lost.put(dir, directory);
+                orphaned.addAll(directory.configs);
+            }
+        }
+
+        for (LiveConfig<?> config : changed) {
+            pending.put(config, now + config.getDebounce());
+        }
+
+        for (LiveConfig<?> config : orphaned) {
+            pending.remove(config);
+            config.onError("watch", new NoSuchFileException(dir.toString(), null, "Directory is no longer watched"));
+        }
+    }
+
+    /**
+     * Watches any lost directories that have since been re-created, and reloads their configs
+     */
+    private void recover() {
+        long now = System.nanoTime();
+        List<LiveConfig<?>> restored = new ArrayList<>();
+
+        synchronized (this) {
+            Iterator<Map.Entry<Path, Directory>> iterator = lost.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Path, Directory> entry = iterator.next();
+                if (!Files.isDirectory(entry.getKey())) {
+                    continue;
+                }
+
+                try {
+                    WatchKey key = watch(entry.getKey());
+                    keys.put(entry.getKey(), key);
+                    directories.put(key, entry.getValue());
+                    restored.addAll(entry.getValue().configs);
+                    iterator.remove();
+                } catch (IOException e) {
+                    // tried again on the next pass
+                }
+            }
+        }
+
+        for (LiveConfig<?> config : restored) {
+            pending.put(config, now + config.getDebounce());
+        }
+    }
+
+    /**
+     * Nanos to wait for the next event, or -1 to wait until one arrives
+     */
+    private long getTimeout() {
+        long timeout = pending.isEmpty() ? -1L : Math.max(0L, nextDeadline() - System.nanoTime());
+        synchronized (this) {
+            if (!lost.isEmpty()) {
+                timeout = timeout < 0 ? RETRY : Math.min(timeout, RETRY);
+            }
+        }
+        return timeout;
+    }
+
+    private void dispatch() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<LiveConfig<?>, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<LiveConfig<?>, Long> entry = iterator.next();
+            if (entry.getValue() - now <= 0) {
+                iterator.remove();
+                RELOADER.execute(entry.getKey()::reload);
+            }
+        }
+    }
+
+    private long nextDeadline() {
+        Iterator<Long> deadlines = pending.values().iterator();
+        long next = deadlines.next();
+        while (deadlines.hasNext()) {
+            long deadline = deadlines.next();
+            if (deadline - next < 0) {
+                next = deadline;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Watches the config's directory, starting a watcher for its file system if there is not one running
+     */
+    static synchronized void register(LiveConfig<?> config) throws IOException {
+        FileSystem fileSystem = config.getPath().getFileSystem();
+        Watcher watcher = WATCHERS.get(fileSystem);
+        if (watcher == null) {
+            watcher = new Watcher(fileSystem.newWatchService());
+            Thread thread = new Thread(watcher, "cfg-watcher");
+            thread.setDaemon(true);
+            thread.start();
+            WATCHERS.put(fileSystem, watcher);
+        }
+
+        try {
+            watcher.add(config);
+        } catch (IOException e) {
+            if (watcher.remove(config)) {
+                WATCHERS.remove(fileSystem);
+                watcher.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops watching for the config, stopping the watcher of its file system if it was the last one
+     */
+    static synchronized void unregister(LiveConfig<?> config) {
+        FileSystem fileSystem = config.getPath().getFileSystem();
+        Watcher watcher = WATCHERS.get(fileSystem);
+        if (watcher != null && watcher.remove(config)) {
+            WATCHERS.remove(fileSystem);
+            watcher.close();
+        }
+    }
+
+    private static class Directory {
+
+        private final List<LiveConfig<?>> configs = new ArrayList<>();
+    }
+}